@@ -0,0 +1,36 @@
+package com.example.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.SocialMediaApp;
+
+/**
+ * Starts the application for a benchmark without the web server.
+ *
+ * The seed rows in data.sql use IDs 9996 to 9999 while the ID sequences start at 1, so the
+ * sequences are moved past the seed rows before a benchmark inserts thousands of rows.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param properties extra "--key=value" arguments, for example to switch a cache off.
+     *        They are passed as command line arguments so they override application.properties.
+     * @return the started application context; close it in the benchmark's tear down
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(SocialMediaApp.class)
+            .web(WebApplicationType.NONE)
+            .properties("logging.level.root=warn")
+            .run(properties);
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("alter sequence account_seq restart with 10000");
+        jdbcTemplate.execute("alter sequence message_seq restart with 10000");
+        return app;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.entity.Message;
+import com.example.exception.InvalidMessageException;
+import com.example.service.MessageService;
+
+/**
+ * Measures MessageService.createMessage: account check, text validation and the insert into in-memory H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateMessageBenchmark {
+
+    private static final int POSTED_BY = 9999;
+
+    private ConfigurableApplicationContext app;
+    private MessageService messageService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = BenchmarkApplication.start();
+        messageService = app.getBean(MessageService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public Message createMessage() {
+        return messageService.createMessage(new Message(POSTED_BY, "benchmark message", 1669947792L));
+    }
+
+    /**
+     * Rejected before reaching the database, so this measures the validation path alone.
+     */
+    @Benchmark
+    public Object createMessageRejected() {
+        try {
+            return messageService.createMessage(new Message(POSTED_BY, "", 1669947792L));
+        } catch (InvalidMessageException e) {
+            return e;
+        }
+    }
+}
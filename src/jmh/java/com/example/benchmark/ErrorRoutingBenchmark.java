@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.example.exception.ExceptionAndErrorController;
+import com.example.exception.InvalidMessageException;
+import com.example.exception.InvalidTimeRangeException;
+import com.example.exception.UsernameExistsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures how long ExceptionAndErrorController takes to turn a service exception into a
+ * response: creating the exception and mapping it to a status code and body. The errors
+ * cover a 409, two 400s and the fallback for any other IllegalArgumentException.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorRoutingBenchmark {
+
+    @Param({"username_exists", "invalid_message_text", "invalid_time_range", "invalid_request"})
+    public String error;
+
+    private ExceptionAndErrorController controller;
+
+    @Setup
+    public void setUp() {
+        controller = new ExceptionAndErrorController(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> routeError() {
+        switch (error) {
+            case "username_exists":
+                return controller.handleDomainErrors(new UsernameExistsException("Username already exists. Try a different username"));
+            case "invalid_message_text":
+                return controller.handleDomainErrors(new InvalidMessageException("Message cannot be blank or over 255 characters."));
+            case "invalid_time_range":
+                return controller.handleDomainErrors(new InvalidTimeRangeException("Invalid time range. since must be before until."));
+            default:
+                return controller.handleInvalidRequests(new IllegalArgumentException("Unmapped error"));
+        }
+    }
+}
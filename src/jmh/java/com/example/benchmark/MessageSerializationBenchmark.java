@@ -0,0 +1,68 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Measures Jackson serialization of message lists, both as Message entities and as the
+ * MessageView projections the read endpoints return.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private ObjectWriter messagesWriter;
+    private ObjectWriter viewsWriter;
+    private List<Message> messages;
+    private List<MessageView> views;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        messagesWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Message.class));
+        viewsWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, MessageView.class));
+        messages = new ArrayList<>(size);
+        views = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Message message = new Message(i, i % 100, "benchmark message " + i, 1669947792L + i);
+            messages.add(message);
+            views.add(MessageView.of(message));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeMessages() throws JsonProcessingException {
+        return messagesWriter.writeValueAsBytes(messages);
+    }
+
+    @Benchmark
+    public byte[] serializeMessageViews() throws JsonProcessingException {
+        return viewsWriter.writeValueAsBytes(views);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.dto.MessageView;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.AccountService;
+import com.example.service.MessageService;
+
+/**
+ * Measures MessageService.getAllMessagesFromUser for an account with 10, 1k and 100k messages,
+ * with the timeline cache on (every call after the first is a hit) and off (every call reads H2).
+ * A 100k message timeline is heavier than the cache's default cap of 100k cached messages
+ * in total, so it is not kept and every call reads H2 either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessagesFromUserBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean timelineCache;
+
+    private ConfigurableApplicationContext app;
+    private MessageService messageService;
+    private int accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = BenchmarkApplication.start("--app.cache.timelines.enabled=" + timelineCache);
+        messageService = app.getBean(MessageService.class);
+        accountId = app.getBean(AccountService.class).register(new Account("benchmark", "password")).getAccountId();
+
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Message(accountId, "benchmark message " + i, 1669947792L + i));
+            if (batch.size() == MessageService.MAX_BATCH_SIZE || i == rows - 1) {
+                messageService.createMessages(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        int loaded = messageService.getAllMessagesFromUser(accountId).size();
+        if (loaded != rows) {
+            throw new IllegalStateException("Expected " + rows + " messages but found " + loaded);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<MessageView> getAllMessagesFromUser() {
+        return messageService.getAllMessagesFromUser(accountId);
+    }
+}
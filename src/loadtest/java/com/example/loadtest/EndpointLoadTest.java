@@ -0,0 +1,177 @@
+package com.example.loadtest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SocialMediaApp;
+import com.example.dto.BatchItemResult;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.AccountService;
+import com.example.service.MessageService;
+
+/**
+ * Load test of every REST endpoint, using the same request shapes as the functional tests.
+ *
+ * Each endpoint is driven on its own at an open-loop arrival rate against a locally started
+ * SocialMediaApp, so every endpoint gets its own latency distribution. The test fails if any
+ * endpoint returns an unexpected status or if its p99 latency is over budget.
+ *
+ * Run with: mvn -Ploadtest test
+ * Settings (system properties, e.g. -Dloadtest.rate=500):
+ *  loadtest.rate               requests started per second, per endpoint (default 100)
+ *  loadtest.warmup             seconds of unrecorded warmup per endpoint (default 5)
+ *  loadtest.duration           seconds recorded per endpoint (default 5)
+ *  loadtest.p99-budget-ms      p99 latency budget in milliseconds (default 100, and 250 for register)
+ *  loadtest.p99-budget-ms.NAME budget for the endpoint named NAME, e.g. loadtest.p99-budget-ms.get-messages
+ *
+ * Registering commits an insert checked against the unique username index, and discards the
+ * cached account queries, so its default budget is higher than the reads' and the other writes'.
+ *
+ * A summary is printed and each endpoint's full percentile distribution is written to
+ * target/loadtest/NAME.hgrm.
+ */
+public class EndpointLoadTest {
+
+    private static final String BASE_URL = "http://localhost:8080";
+    private static final String DEFAULT_BUDGET_MS = "100";
+    private static final Map<String, String> DEFAULT_ENDPOINT_BUDGETS_MS = Map.of("register", "250");
+
+    static ConfigurableApplicationContext app;
+    static int rate;
+    static Duration warmup;
+    static Duration duration;
+    static int accountId;
+
+    @BeforeAll
+    public static void setUp() throws InterruptedException {
+        rate = Integer.getInteger("loadtest.rate", 100);
+        warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 5));
+        app = SpringApplication.run(SocialMediaApp.class, "--logging.level.root=warn");
+        accountId = app.getBean(AccountService.class).register(new Account("loadtest", "password")).getAccountId();
+        Thread.sleep(500);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        SpringApplication.exit(app);
+    }
+
+    @Test
+    public void endpointsWithinLatencyBudget() throws IOException {
+        LoadGenerator generator = new LoadGenerator(rate, warmup, duration);
+        List<LoadGenerator.Result> results = new ArrayList<>();
+
+        results.add(generator.run("register", i -> post("/register",
+            "{\"username\":\"load" + i + "\",\"password\":\"password\"}"), 200));
+        results.add(generator.run("login", i -> post("/login",
+            "{\"username\":\"loadtest\",\"password\":\"password\"}"), 200));
+        results.add(generator.run("get-messages", i -> get("/messages"), 200));
+        results.add(generator.run("get-messages-page", i -> get("/messages?limit=50"), 200));
+        results.add(generator.run("get-account-messages", i -> get("/accounts/" + accountId + "/messages"), 200));
+        results.add(generator.run("post-message", i -> post("/messages",
+            "{\"postedBy\":" + accountId + ",\"messageText\":\"load test message " + i + "\",\"timePostedEpoch\":1669947792}"), 200));
+
+        List<Integer> messageIds = createMessages();
+        results.add(generator.run("get-message", cycle(messageIds, id -> get("/messages/" + id)), 200));
+        results.add(generator.run("patch-message", cycle(messageIds, id -> HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL + "/messages/" + id))
+            .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\":\"load test edit\"}"))
+            .header("Content-Type", "application/json")
+            .build()), 200));
+        results.add(generator.run("delete-message", cycle(messageIds, id -> HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL + "/messages/" + id))
+            .DELETE()
+            .build()), 200));
+
+        report(results);
+        for (LoadGenerator.Result result : results) {
+            double budget = Double.parseDouble(budgetMillis(result.getEndpoint()));
+            Assertions.assertEquals(0, result.getUnexpectedResponses(),
+                result.getEndpoint() + ": expected every response to have the expected status");
+            Assertions.assertTrue(result.getLatencyMillis(99) <= budget,
+                result.getEndpoint() + ": p99 " + result.getLatencyMillis(99) + " ms is over the budget of " + budget + " ms");
+        }
+    }
+
+    /**
+     * @return the p99 budget of an endpoint: its own setting, else the global setting, else its default
+     */
+    private static String budgetMillis(String endpoint) {
+        String budget = System.getProperty("loadtest.p99-budget-ms." + endpoint, System.getProperty("loadtest.p99-budget-ms"));
+        return budget != null ? budget : DEFAULT_ENDPOINT_BUDGETS_MS.getOrDefault(endpoint, DEFAULT_BUDGET_MS);
+    }
+
+    /**
+     * Creates enough messages for every scheduled request of one endpoint to target a different message.
+     */
+    private List<Integer> createMessages() {
+        MessageService messageService = app.getBean(MessageService.class);
+        long count = (long) rate * (warmup.getSeconds() + duration.getSeconds());
+        List<Integer> messageIds = new ArrayList<>();
+        List<Message> batch = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            batch.add(new Message(accountId, "load test target " + i, 1669947792L));
+            if (batch.size() == MessageService.MAX_BATCH_SIZE || i == count - 1) {
+                for (BatchItemResult result : messageService.createMessages(batch)) {
+                    messageIds.add(result.getMessage().getMessageId());
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        return messageIds;
+    }
+
+    private static LongFunction<HttpRequest> cycle(List<Integer> messageIds, LongFunction<HttpRequest> request) {
+        return i -> request.apply(messageIds.get((int) (i % messageIds.size())));
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder().uri(URI.create(BASE_URL + path)).build();
+    }
+
+    private static HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL + path))
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .header("Content-Type", "application/json")
+            .build();
+    }
+
+    private static void report(List<LoadGenerator.Result> results) throws IOException {
+        Path directory = Paths.get("target", "loadtest");
+        Files.createDirectories(directory);
+        System.out.printf("%n%-22s %9s %10s %9s %9s %9s %9s %9s %7s%n",
+            "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (LoadGenerator.Result result : results) {
+            System.out.printf("%-22s %9d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                result.getEndpoint(), result.getRequests(), result.getThroughput(),
+                result.getLatencyMillis(50), result.getLatencyMillis(90), result.getLatencyMillis(99),
+                result.getLatencyMillis(99.9), result.getLatencies().getMaxValue() / 1e6, result.getUnexpectedResponses());
+            try (PrintStream out = new PrintStream(directory.resolve(result.getEndpoint() + ".hgrm").toFile())) {
+                result.getLatencies().outputPercentileDistribution(out, 1e6);
+            } catch (FileNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
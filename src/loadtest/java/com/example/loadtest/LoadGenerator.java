@@ -0,0 +1,194 @@
+package com.example.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-loop HTTP load generator, with a closed-loop mode for fixed concurrency.
+ *
+ * Requests are started on a fixed schedule (rate per second) whether or not earlier requests
+ * have completed, the way independent clients arrive. Each latency is measured from the time
+ * the request was scheduled to start, not from when it was actually sent, so a server that
+ * falls behind shows up as queueing delay in the histogram instead of a lower request rate
+ * (no coordinated omission).
+ */
+public class LoadGenerator {
+
+    /** Highest latency the histograms can record; slower requests are clamped to it */
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+
+    /**
+     * @param rate the number of requests started per second
+     * @param warmup how long to run before recording, to warm up the JIT, caches and connection pool
+     * @param duration how long to run while recording
+     */
+    public LoadGenerator(int rate, Duration warmup, Duration duration) {
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    /**
+     * Result of driving one endpoint: the latency distribution in nanoseconds and the request counts.
+     */
+    public static class Result {
+
+        private final String endpoint;
+        private final Histogram latencies;
+        private final long requests;
+        private final long unexpectedResponses;
+        private final Duration duration;
+
+        Result(String endpoint, Histogram latencies, long requests, long unexpectedResponses, Duration duration) {
+            this.endpoint = endpoint;
+            this.latencies = latencies;
+            this.requests = requests;
+            this.unexpectedResponses = unexpectedResponses;
+            this.duration = duration;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public Histogram getLatencies() {
+            return latencies;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return the number of requests that failed or returned a status other than the expected one
+         */
+        public long getUnexpectedResponses() {
+            return unexpectedResponses;
+        }
+
+        /**
+         * @return completed requests per second over the recorded period
+         */
+        public double getThroughput() {
+            return requests / (duration.toNanos() / 1e9);
+        }
+
+        /**
+         * @param percentile a percentile between 0 and 100
+         * @return the latency at that percentile, in milliseconds
+         */
+        public double getLatencyMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+
+    /**
+     * Drives one endpoint for the warmup period and then for the recorded period.
+     *
+     * @param endpoint the name the endpoint is reported under
+     * @param requests builds the i-th request; called from a single thread, in order
+     * @param expectedStatus the status code every response should have
+     * @return the latencies and counts of the recorded period
+     */
+    public Result run(String endpoint, LongFunction<HttpRequest> requests, int expectedStatus) {
+        long[] sequence = {0};
+        LongFunction<HttpRequest> numbered = ignored -> requests.apply(sequence[0]++);
+        drive(numbered, expectedStatus, warmup, new ConcurrentHistogram(MAX_LATENCY_NANOS, 3), new LongAdder());
+
+        Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        LongAdder unexpected = new LongAdder();
+        drive(numbered, expectedStatus, duration, latencies, unexpected);
+        return new Result(endpoint, latencies, latencies.getTotalCount(), unexpected.sum(), duration);
+    }
+
+    /**
+     * Drives one endpoint with a fixed number of requests in flight, for the warmup period and
+     * then for the recorded period. A new request is started as soon as one completes, so this
+     * measures how the server copes with that many concurrent clients rather than a fixed rate.
+     * Latency is measured from when each request was sent.
+     *
+     * @param endpoint the name the endpoint is reported under
+     * @param requests builds the i-th request; called from a single thread, in order
+     * @param expectedStatus the status code every response should have
+     * @param concurrency the number of requests kept in flight
+     * @return the latencies and counts of the recorded period
+     */
+    public Result runConcurrent(String endpoint, LongFunction<HttpRequest> requests, int expectedStatus, int concurrency)
+            throws InterruptedException {
+        long[] sequence = {0};
+        LongFunction<HttpRequest> numbered = ignored -> requests.apply(sequence[0]++);
+        driveConcurrent(numbered, expectedStatus, concurrency, warmup, new ConcurrentHistogram(MAX_LATENCY_NANOS, 3), new LongAdder());
+
+        Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        LongAdder unexpected = new LongAdder();
+        driveConcurrent(numbered, expectedStatus, concurrency, duration, latencies, unexpected);
+        return new Result(endpoint, latencies, latencies.getTotalCount(), unexpected.sum(), duration);
+    }
+
+    private void driveConcurrent(LongFunction<HttpRequest> requests, int expectedStatus, int concurrency, Duration period,
+                                 Histogram latencies, LongAdder unexpected) throws InterruptedException {
+        Semaphore slots = new Semaphore(concurrency);
+        long end = System.nanoTime() + period.toNanos();
+        for (long i = 0; System.nanoTime() < end; i++) {
+            slots.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(requests.apply(i), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    latencies.recordValue(Math.min(System.nanoTime() - sent, MAX_LATENCY_NANOS));
+                    if (error != null || response.statusCode() != expectedStatus) {
+                        unexpected.increment();
+                    }
+                    slots.release();
+                });
+        }
+        // Wait for the requests still in flight
+        slots.acquire(concurrency);
+    }
+
+    private void drive(LongFunction<HttpRequest> requests, int expectedStatus, Duration period,
+                       Histogram latencies, LongAdder unexpected) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + period.toNanos();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.add(client.sendAsync(requests.apply(i), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    latencies.recordValue(Math.min(System.nanoTime() - intendedStart, MAX_LATENCY_NANOS));
+                    if (error != null || response.statusCode() != expectedStatus) {
+                        unexpected.increment();
+                    }
+                }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+            .exceptionally(error -> null)
+            .join();
+    }
+}
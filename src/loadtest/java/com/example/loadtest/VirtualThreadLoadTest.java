@@ -0,0 +1,85 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SocialMediaApp;
+
+/**
+ * Compares request handling on Tomcat's platform thread pool with the virtual thread mode
+ * (app.threads.virtual.enabled=true) at high concurrency.
+ *
+ * The app is started once per mode with the same pool and connection limits, and the same
+ * endpoints are driven with a fixed number of requests in flight. Both modes must answer
+ * every request; the printed table shows throughput and latency side by side.
+ *
+ * Needs a Java 21 runtime, and is skipped otherwise. Run with:
+ *   mvn -Ploadtest test -Dtest=VirtualThreadLoadTest
+ * Settings (system properties):
+ *  loadtest.concurrency  requests kept in flight (default 2000)
+ *  loadtest.warmup       seconds of unrecorded warmup per endpoint (default 5)
+ *  loadtest.duration     seconds recorded per endpoint (default 5)
+ */
+public class VirtualThreadLoadTest {
+
+    private static final String BASE_URL = "http://localhost:8080";
+
+    @Test
+    public void platformAndVirtualThreadsAtHighConcurrency() throws InterruptedException {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21 or later");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 2000);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 5));
+
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[] {false, true}) {
+            String mode = virtualThreads ? "virtual" : "platform";
+            ConfigurableApplicationContext app = SpringApplication.run(SocialMediaApp.class,
+                "--logging.level.root=warn",
+                "--app.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.max-connections=" + (concurrency * 2),
+                "--server.tomcat.accept-count=" + concurrency);
+            try {
+                LoadGenerator generator = new LoadGenerator(1, warmup, duration);
+                results.add(generator.runConcurrent(mode + " get-account-messages",
+                    i -> get("/accounts/9999/messages"), 200, concurrency));
+                results.add(generator.runConcurrent(mode + " get-message",
+                    i -> get("/messages/9999"), 200, concurrency));
+                results.add(generator.runConcurrent(mode + " post-message", i -> HttpRequest.newBuilder()
+                    .uri(URI.create(BASE_URL + "/messages"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"postedBy\":9999,\"messageText\":\"load test message " + i + "\",\"timePostedEpoch\":1669947792}"))
+                    .header("Content-Type", "application/json")
+                    .build(), 200, concurrency));
+            } finally {
+                SpringApplication.exit(app);
+            }
+        }
+
+        System.out.printf("%n%d requests in flight%n%-30s %9s %10s %9s %9s %9s %9s %7s%n", concurrency,
+            "mode / endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (LoadGenerator.Result result : results) {
+            System.out.printf("%-30s %9d %10.1f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                result.getEndpoint(), result.getRequests(), result.getThroughput(),
+                result.getLatencyMillis(50), result.getLatencyMillis(99), result.getLatencyMillis(99.9),
+                result.getLatencies().getMaxValue() / 1e6, result.getUnexpectedResponses());
+        }
+        for (LoadGenerator.Result result : results) {
+            Assertions.assertEquals(0, result.getUnexpectedResponses(),
+                result.getEndpoint() + ": expected every response to have the expected status");
+        }
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder().uri(URI.create(BASE_URL + path)).build();
+    }
+}
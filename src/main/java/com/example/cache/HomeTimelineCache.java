@@ -0,0 +1,262 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.datasource.ReadWriteRoutingDataSource;
+import com.example.dto.MessageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-process home timelines, keyed by the ID of the following account.
+ *
+ * A home timeline holds the positions (timePostedEpoch, messageId) of the newest messages
+ * posted by the accounts its owner follows, newest first, and at most timeline-size of them.
+ * It is built from the database on its first read, and from then on kept up to date by fan-out
+ * on write: every new message is added to the cached home timelines of its author's followers.
+ * Followers whose home timeline is not cached are skipped; theirs is built when next read.
+ *
+ * Accounts with too many followers to fan out to are not added to home timelines. Instead each
+ * home timeline lists the ones its owner follows, and their messages are read at read time.
+ *
+ * A fan-out to a home timeline that is being built waits for the build, since Caffeine blocks
+ * a compute on a key while a load for that key is in flight, so no message is lost to the race.
+ * Home timelines are rebuilt after their owner follows or unfollows an account.
+ *
+ * A home timeline only allocates room for the messages it holds, and the cache is bounded by
+ * the total number of messages held, app.feed.maximum-messages, rather than by the number of
+ * home timelines, so memory does not grow with timeline-size times the number of accounts.
+ */
+@Component
+public class HomeTimelineCache {
+
+    /**
+     * The home timeline of one account. Changed by fan-out while it is being read, so every
+     * access is synchronized.
+     */
+    public static class HomeTimeline {
+
+        /** Room reserved for messages fanned out to a timeline built with none */
+        private static final int MINIMUM_LENGTH = 8;
+
+        private final int capacity;
+        private long[] times;
+        private int[] messageIds;
+        private final int[] pulledAccountIds;
+        private int size;
+        private boolean truncated;
+
+        /**
+         * @param capacity the largest number of messages to keep
+         * @param positions the newest messages of the followed accounts, newest first, at most capacity of them
+         * @param truncated true if older messages of the followed accounts were left out
+         * @param pulledAccountIds the followed accounts whose messages are not fanned out
+         */
+        public HomeTimeline(int capacity, List<MessageCursor> positions, boolean truncated, int[] pulledAccountIds) {
+            this.capacity = capacity;
+            int length = Math.min(capacity, Math.max(MINIMUM_LENGTH, positions.size()));
+            this.times = new long[length];
+            this.messageIds = new int[length];
+            for (MessageCursor position : positions) {
+                times[size] = position.getTimePostedEpoch();
+                messageIds[size++] = position.getMessageId();
+            }
+            this.truncated = truncated;
+            this.pulledAccountIds = pulledAccountIds;
+        }
+
+        /**
+         * @return the number of messages held, which is the weight of the timeline in the cache
+         */
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * @return the followed accounts whose messages must be read at read time
+         */
+        public int[] getPulledAccountIds() {
+            return pulledAccountIds;
+        }
+
+        /**
+         * @return true if messages older than the oldest one held were left out or dropped,
+         *         in which case they must be read from the database
+         */
+        public synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * Returns the positions of the messages that sort after the provided position.
+         *
+         * @param after the position of the last message on the previous page, or null for the first page
+         * @param limit the largest number of positions to return
+         * @return at most limit positions, newest first
+         */
+        public synchronized List<MessageCursor> page(MessageCursor after, int limit) {
+            int from = after == null ? 0 : insertionPoint(after.getTimePostedEpoch(), after.getMessageId());
+            if (after != null && from < size && messageIds[from] == after.getMessageId()) {
+                from++;
+            }
+            List<MessageCursor> positions = new ArrayList<>(Math.min(limit, size - from));
+            for (int i = from; i < size && positions.size() < limit; i++) {
+                positions.add(new MessageCursor(times[i], messageIds[i]));
+            }
+            return positions;
+        }
+
+        synchronized void add(MessageCursor position) {
+            int index = insertionPoint(position.getTimePostedEpoch(), position.getMessageId());
+            if (index < size && messageIds[index] == position.getMessageId()) {
+                // Already read when the timeline was built
+                return;
+            }
+            if (size == capacity) {
+                truncated = true;
+                if (index == size) {
+                    return;
+                }
+                // Drop the oldest message to make room
+                size--;
+            } else if (size == times.length) {
+                int length = Math.min(capacity, size * 2);
+                times = Arrays.copyOf(times, length);
+                messageIds = Arrays.copyOf(messageIds, length);
+            }
+            System.arraycopy(times, index, times, index + 1, size - index);
+            System.arraycopy(messageIds, index, messageIds, index + 1, size - index);
+            times[index] = position.getTimePostedEpoch();
+            messageIds[index] = position.getMessageId();
+            size++;
+        }
+
+        synchronized void remove(int messageId) {
+            for (int i = 0; i < size; i++) {
+                if (messageIds[i] == messageId) {
+                    System.arraycopy(times, i + 1, times, i, size - i - 1);
+                    System.arraycopy(messageIds, i + 1, messageIds, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return the index of the first message that does not sort before the provided position
+         */
+        private int insertionPoint(long time, int messageId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                // Newest first: a message sorts before the position if it is newer
+                if (times[middle] > time || (times[middle] == time && messageIds[middle] > messageId)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final int timelineSize;
+    private final Cache<Integer, HomeTimeline> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public HomeTimelineCache(@Value("${app.feed.timeline-size:800}") int timelineSize,
+                             @Value("${app.feed.maximum-messages:1000000}") long maximumMessages) {
+        this.timelineSize = timelineSize;
+        this.cache = Caffeine.newBuilder()
+            // Reweighed after every fan-out, which returns the timeline from a compute
+            .maximumWeight(maximumMessages)
+            .weigher((Integer accountId, HomeTimeline timeline) -> 1 + timeline.size())
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the home timeline of an account, building and caching it on a miss.
+     *
+     * @param accountId the ID of the following account
+     * @param loader builds the home timeline from the database
+     * @return the account's home timeline
+     */
+    public HomeTimeline get(int accountId, IntFunction<HomeTimeline> loader) {
+        HomeTimeline cached = cache.getIfPresent(accountId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // A home timeline read from a lagging replica must not be cached
+        return cache.get(accountId, id -> ReadWriteRoutingDataSource.readFromPrimary(() -> loader.apply(id)));
+    }
+
+    /**
+     * Adds a new message to the cached home timelines of its author's followers. Must be called
+     * after the message has been committed.
+     *
+     * @param followerIds the followers of the message's author
+     * @param position the position of the new message
+     */
+    public void fanOut(Collection<Integer> followerIds, MessageCursor position) {
+        for (Integer followerId : followerIds) {
+            cache.asMap().computeIfPresent(followerId, (id, timeline) -> {
+                timeline.add(position);
+                return timeline;
+            });
+        }
+    }
+
+    /**
+     * Removes a deleted message from the cached home timelines of its author's followers.
+     *
+     * @param followerIds the followers of the message's author
+     * @param messageId the ID of the deleted message
+     */
+    public void remove(Collection<Integer> followerIds, int messageId) {
+        for (Integer followerId : followerIds) {
+            cache.asMap().computeIfPresent(followerId, (id, timeline) -> {
+                timeline.remove(messageId);
+                return timeline;
+            });
+        }
+    }
+
+    /**
+     * Drops the home timeline of an account, for example after it followed another account.
+     */
+    public void invalidate(int accountId) {
+        cache.invalidate(accountId);
+    }
+
+    /**
+     * @return the largest number of messages kept in one home timeline
+     */
+    public int getTimelineSize() {
+        return timelineSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.cache;
+
+import java.time.Duration;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.datasource.ReadWriteRoutingDataSource;
+import com.example.dto.MessageView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * In-process cache of messages by message ID.
+ *
+ * The cache holds at most a configured number of messages and drops each one a fixed time
+ * after it was written. It is filled when a message is read, kept up to date when a message
+ * is created or edited, and cleared for a message when it is deleted.
+ *
+ * Writers update the cache only after their change has been committed. Caffeine blocks a
+ * put or invalidate on a key while a load for that key is in flight, so a reader that
+ * loaded the old row cannot overwrite a newer value.
+ *
+ * The cache can be switched off with app.cache.messages.enabled=false, in which case every
+ * lookup goes to the database.
+ */
+@Component
+public class MessageCache {
+
+    private final boolean enabled;
+    private final Cache<Integer, MessageView> cache;
+
+    public MessageCache(@Value("${app.cache.messages.enabled:true}") boolean enabled,
+                        @Value("${app.cache.messages.maximum-size:10000}") long maximumSize,
+                        @Value("${app.cache.messages.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the cached message with the provided ID, loading and caching it on a miss.
+     *
+     * @param messageId the ID of the message to look up
+     * @param loader reads the message from the database; may return null if it does not exist
+     * @return the message, or null if it does not exist. Missing messages are not cached.
+     */
+    public MessageView get(int messageId, IntFunction<MessageView> loader) {
+        if (!enabled) {
+            return loader.apply(messageId);
+        }
+        // A message read from a lagging replica must not be cached
+        return cache.get(messageId, id -> ReadWriteRoutingDataSource.readFromPrimary(() -> loader.apply(id)));
+    }
+
+    /**
+     * Stores the current state of a message, for example after it was created.
+     */
+    public void put(MessageView message) {
+        if (enabled) {
+            cache.put(message.getMessageId(), message);
+        }
+    }
+
+    /**
+     * Replaces the text of a cached message after it was edited. Messages that are not
+     * cached are left alone, they will be loaded with the new text on the next read.
+     */
+    public void updateText(int messageId, String messageText) {
+        if (enabled) {
+            cache.asMap().computeIfPresent(messageId, (id, cached) -> cached.withMessageText(messageText));
+        }
+    }
+
+    /**
+     * Removes a message from the cache, for example after it was deleted.
+     */
+    public void invalidate(int messageId) {
+        if (enabled) {
+            cache.invalidate(messageId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return hit, miss and eviction counters since startup
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+}
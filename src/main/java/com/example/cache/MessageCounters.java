@@ -0,0 +1,123 @@
+package com.example.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.example.dto.AccountMessageCount;
+
+/**
+ * In-process message counts, in total and per posting account.
+ *
+ * Writers increment and decrement the counters after committing a new or deleted message, so
+ * a count is read without touching the database. Each counter is a LongAdder, which spreads
+ * concurrent updates over several cells instead of contending on one.
+ *
+ * The counters start at zero and are brought in line with the database by reconcile, which
+ * the MessageCountReconciler calls at startup and then periodically. It corrects any drift,
+ * for example from messages deleted by cascade or written by another process.
+ */
+@Component
+public class MessageCounters {
+
+    /**
+     * The values of the counters at one point in time, taken before counting the messages in
+     * the database.
+     */
+    public static class Snapshot {
+
+        private final long total;
+        private final Map<Integer, Long> byAccount;
+
+        private Snapshot(long total, Map<Integer, Long> byAccount) {
+            this.total = total;
+            this.byAccount = byAccount;
+        }
+    }
+
+    private final LongAdder total = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> byAccount = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a new message. Must be called after the message has been committed.
+     */
+    public void messageCreated(Integer postedBy) {
+        total.increment();
+        if (postedBy != null) {
+            byAccount.computeIfAbsent(postedBy, id -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Uncounts a deleted message. Must be called after the message has been deleted.
+     */
+    public void messageDeleted(Integer postedBy) {
+        total.decrement();
+        if (postedBy != null) {
+            byAccount.computeIfAbsent(postedBy, id -> new LongAdder()).decrement();
+        }
+    }
+
+    /**
+     * @return the number of stored messages
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @param accountId the ID of an account
+     * @return the number of messages posted by the account, 0 if it does not exist
+     */
+    public long getCount(int accountId) {
+        LongAdder count = byAccount.get(accountId);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return the current values of the counters, to pass to reconcile
+     */
+    public Snapshot snapshot() {
+        Map<Integer, Long> counts = new HashMap<>();
+        byAccount.forEach((accountId, count) -> counts.put(accountId, count.sum()));
+        return new Snapshot(total.sum(), counts);
+    }
+
+    /**
+     * Corrects the counters to the counts read from the database.
+     *
+     * Each counter is moved by the difference between the database count and its value in
+     * the snapshot, rather than being overwritten, so the messages counted while the database
+     * was being read are kept. A message committed between the snapshot and the database read
+     * but counted after the snapshot is counted twice until the next reconcile.
+     *
+     * @param before the counters as they were before the database was read
+     * @param counts the number of messages per posting account in the database
+     */
+    public void reconcile(Snapshot before, List<AccountMessageCount> counts) {
+        long counted = 0;
+        Map<Integer, Long> countedByAccount = new HashMap<>();
+        for (AccountMessageCount count : counts) {
+            counted += count.getCount();
+            if (count.getPostedBy() != null) {
+                countedByAccount.put(count.getPostedBy(), count.getCount());
+            }
+        }
+        total.add(counted - before.total);
+
+        Set<Integer> accountIds = new HashSet<>(before.byAccount.keySet());
+        accountIds.addAll(countedByAccount.keySet());
+        for (Integer accountId : accountIds) {
+            long correction = countedByAccount.getOrDefault(accountId, 0L) - before.byAccount.getOrDefault(accountId, 0L);
+            if (correction != 0) {
+                byAccount.computeIfAbsent(accountId, id -> new LongAdder()).add(correction);
+            }
+        }
+    }
+}
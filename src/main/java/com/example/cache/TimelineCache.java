@@ -0,0 +1,163 @@
+package com.example.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.datasource.ReadWriteRoutingDataSource;
+import com.example.dto.MessageView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+/**
+ * In-process cache of each account's timeline (whether the account exists and the
+ * messages it has posted), keyed by account ID.
+ *
+ * Every account has a version that writers move forward after committing a change to one of
+ * the account's messages. A reader notes the version before loading a timeline and stores the
+ * timeline under that version; a cached timeline is only served while its version is still
+ * current. A timeline loaded concurrently with a write is therefore never served after the
+ * write has returned, so readers always see their own writes.
+ *
+ * Versions are taken from one global sequence and kept for at most maximum-versions recently
+ * written accounts. An account whose version was evicted, or that was never written to, takes
+ * the highest evicted version instead. That is never lower than its real version, so a stale
+ * timeline is never served, at the cost of reloading the timelines stored under older versions.
+ *
+ * The cache is capped by the total number of cached messages and evicts the least
+ * recently and frequently used timelines first. It can be switched off with
+ * app.cache.timelines.enabled=false.
+ */
+@Component
+public class TimelineCache {
+
+    /**
+     * A cached timeline: whether the account exists and its messages, newest first.
+     */
+    public static class Timeline {
+
+        private final boolean accountExists;
+        private final List<MessageView> messages;
+
+        public Timeline(boolean accountExists, List<MessageView> messages) {
+            this.accountExists = accountExists;
+            this.messages = List.copyOf(messages);
+        }
+
+        public boolean accountExists() {
+            return accountExists;
+        }
+
+        public List<MessageView> getMessages() {
+            return messages;
+        }
+    }
+
+    private static class Entry {
+
+        private final long version;
+        private final Timeline timeline;
+
+        private Entry(long version, Timeline timeline) {
+            this.version = version;
+            this.timeline = timeline;
+        }
+    }
+
+    private final boolean enabled;
+    private final Cache<Integer, Entry> cache;
+    private final Cache<Integer, Long> versions;
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final AtomicLong evictedVersion = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TimelineCache(@Value("${app.cache.timelines.enabled:true}") boolean enabled,
+                         @Value("${app.cache.timelines.maximum-messages:100000}") long maximumMessages,
+                         @Value("${app.cache.timelines.maximum-versions:100000}") long maximumVersions) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+            // Weigh each timeline by its number of messages so the cap bounds memory, not entry count
+            .maximumWeight(maximumMessages)
+            .weigher((Integer accountId, Entry entry) -> 1 + entry.timeline.getMessages().size())
+            .recordStats()
+            .build();
+        this.versions = Caffeine.newBuilder()
+            .maximumSize(maximumVersions)
+            // Runs atomically with the eviction, before the version disappears from the map, so no reader misses both
+            .evictionListener((Integer accountId, Long version, RemovalCause cause) ->
+                evictedVersion.accumulateAndGet(version, Math::max))
+            .build();
+    }
+
+    /**
+     * @return the version of an account: its last write, or the highest evicted version if its
+     *         own has been evicted or it was never written to
+     */
+    private long currentVersion(int accountId) {
+        Long version = versions.getIfPresent(accountId);
+        return version != null ? version : evictedVersion.get();
+    }
+
+    /**
+     * Returns the current timeline of an account, loading and caching it if the cached
+     * timeline is missing or older than the account's last write.
+     *
+     * @param accountId the ID of the account
+     * @param loader reads the timeline from the database
+     * @return the account's timeline
+     */
+    public Timeline get(int accountId, IntFunction<Timeline> loader) {
+        if (!enabled) {
+            return loader.apply(accountId);
+        }
+        // Read the version before loading, a write that lands during the load makes this version stale
+        long version = currentVersion(accountId);
+        Entry cached = cache.getIfPresent(accountId);
+        if (cached != null && cached.version == version) {
+            hits.increment();
+            return cached.timeline;
+        }
+        misses.increment();
+        // A timeline read from a lagging replica must not be cached
+        Timeline loaded = ReadWriteRoutingDataSource.readFromPrimary(() -> loader.apply(accountId));
+        // Never replace a timeline stored under a newer version
+        cache.asMap().merge(accountId, new Entry(version, loaded),
+            (current, candidate) -> current.version >= candidate.version ? current : candidate);
+        return loaded;
+    }
+
+    /**
+     * Marks the cached timeline of an account as out of date. Must be called after the write
+     * to the account's messages (or to the account itself) has been committed.
+     *
+     * @param accountId the ID of the account that was written to
+     */
+    public void invalidate(int accountId) {
+        if (enabled) {
+            versions.asMap().merge(accountId, lastVersion.incrementAndGet(), Math::max);
+            cache.invalidate(accountId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory Bloom filter of the usernames that have been registered.
+ *
+ * A Bloom filter answers "definitely not taken" or "possibly taken". Registration uses it to
+ * skip the username lookup for names that have never been seen, and only checks the database
+ * when the filter reports a possible match. False positives only cost that extra lookup; the
+ * unique index on account.username remains the source of truth.
+ *
+ * The filter is sized from the expected number of usernames and the target false positive
+ * rate. Usernames are only ever added, so it is safe to read and update concurrently.
+ */
+@Component
+public class UsernameBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public UsernameBloomFilter(@Value("${app.registration.bloom-filter.expected-usernames:1000000}") long expectedUsernames,
+                               @Value("${app.registration.bloom-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        // Optimal sizing: m = -n ln(p) / (ln 2)^2 bits and k = (m / n) ln 2 hash functions
+        long optimalBits = (long) Math.ceil(-expectedUsernames * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedUsernames * Math.log(2)));
+    }
+
+    /**
+     * Records a username as taken.
+     */
+    public void add(String username) {
+        long hash = hash64(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1 + i * h2));
+        }
+    }
+
+    /**
+     * @return false if the username has definitely never been added, true if it might have been
+     */
+    public boolean mightContain(String username) {
+        long hash = hash64(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combinedHash) {
+        // Flip negative hashes so every index is in range
+        return (combinedHash < 0 ? ~combinedHash : combinedHash) % bitCount;
+    }
+
+    private void setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes, finished with a MurmurHash3 mix so both halves are usable.
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Web server of the reactive profile (see application-reactive.properties).
+ *
+ * Tomcat is on the classpath for the servlet stack, and Spring Boot would pick it for a
+ * reactive application too. Declaring the Netty factory runs WebFlux on Reactor Netty
+ * instead, where a few event-loop threads (one per core by default) serve every connection.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
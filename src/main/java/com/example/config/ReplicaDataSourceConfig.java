@@ -0,0 +1,130 @@
+package com.example.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.cache.TimelineCache;
+import com.example.datasource.ReadWriteRoutingDataSource;
+import com.example.datasource.ReadYourWritesInterceptor;
+import com.example.datasource.ReplicaRoutingPolicy;
+import com.example.datasource.ReplicaSynchronizer;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Opt-in read replica for read-only transactions.
+ *
+ * Enabled with app.datasource.replica.enabled=true. The application then gets two connection
+ * pools: the primary, configured by the spring.datasource properties, and the replica,
+ * configured by the app.datasource.replica properties. The @Transactional(readOnly = true)
+ * service methods read from the replica as long as it is no more than
+ * app.datasource.replica.max-lag behind the primary, and the client has not written anything
+ * since the replica's last sync. Everything else goes to the primary.
+ *
+ * The replica is a local H2 database kept up to date by the ReplicaSynchronizer every
+ * app.datasource.replica.sync-interval. The replica's lag is published as the
+ * app.datasource.replica.lag gauge.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig implements WebMvcConfigurer {
+
+    private final ReplicaRoutingPolicy policy;
+
+    public ReplicaDataSourceConfig(@Value("${app.datasource.replica.max-lag:1s}") Duration maxLag) {
+        this.policy = new ReplicaRoutingPolicy(maxLag.toNanos());
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username}") String username,
+                                              @Value("${app.datasource.replica.password}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    /**
+     * The data source used by JPA and JDBC, which picks the primary or the replica when a
+     * connection is first used.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(policy, entityManagerFactory);
+        routingDataSource.setTargetDataSources(Map.of(
+            ReadWriteRoutingDataSource.Target.PRIMARY, primaryDataSource,
+            ReadWriteRoutingDataSource.Target.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public ReplicaSynchronizer replicaSynchronizer(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                   @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                                   DataSourceProperties properties,
+                                                   @Value("${app.datasource.replica.sync-interval:100ms}") Duration syncInterval,
+                                                   TimelineCache timelineCache,
+                                                   EntityManagerFactory entityManagerFactory) {
+        return new ReplicaSynchronizer(primaryDataSource, replicaDataSource, properties.determineUrl(),
+            properties.determineUsername(), properties.determinePassword(), syncInterval, policy,
+            timelineCache, entityManagerFactory);
+    }
+
+    /**
+     * Starts syncing the replica once the primary's schema and seed data have been created.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplicaSync(ApplicationReadyEvent event) throws SQLException {
+        event.getApplicationContext().getBean(ReplicaSynchronizer.class).start();
+    }
+
+    @Bean
+    public MeterBinder replicaLagMetrics() {
+        return registry -> Gauge.builder("app.datasource.replica.lag", policy, ReplicaRoutingPolicy::getLagSeconds)
+            .baseUnit("seconds").register(registry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(policy));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.example.repository.MessageStore;
+import com.example.repository.ShardedMessageStore;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Opt-in sharding of the messages across several databases.
+ *
+ * Enabled with app.sharding.enabled=true. The messages are then stored by the
+ * ShardedMessageStore in app.sharding.shards databases instead of the message table of the
+ * main database; accounts stay in the main database. The URL of each shard is
+ * app.sharding.url with {shard} replaced by the shard number, and each shard gets its own
+ * connection pool and the schema from shard-schema.sql at startup.
+ *
+ * Messages already in the main database are not moved to the shards. Write-behind writes to
+ * the main database's message table and cannot be combined with sharding.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private final List<HikariDataSource> shardDataSources = new ArrayList<>();
+
+    public ShardingConfig(@Value("${app.write-behind.enabled:false}") boolean writeBehindEnabled) {
+        if (writeBehindEnabled) {
+            throw new IllegalStateException("app.sharding.enabled=true cannot be combined with app.write-behind.enabled=true");
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public MessageStore shardedMessageStore(@Value("${app.sharding.shards}") int shards,
+                                            @Value("${app.sharding.url}") String url,
+                                            @Value("${app.sharding.username}") String username,
+                                            @Value("${app.sharding.password}") String password,
+                                            @Value("${app.sharding.maximum-pool-size:10}") int maximumPoolSize) {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("shard-schema.sql"));
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(url.replace("{shard}", String.valueOf(shard)));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+            dataSource.setPoolName("shard-" + shard);
+            shardDataSources.add(dataSource);
+            schema.execute(dataSource);
+            dataSources.add(dataSource);
+        }
+        return new ShardedMessageStore(dataSources);
+    }
+
+    @PreDestroy
+    public void closeShards() {
+        shardDataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Opt-in mode that handles every request on its own virtual thread.
+ *
+ * Enabled with app.threads.virtual.enabled=true. Tomcat then hands each request to a new
+ * virtual thread instead of its bounded worker pool, so a request waiting for a JDBC
+ * connection or a query no longer holds a platform thread. The service and repository calls
+ * run on the request's thread and therefore also run on the virtual thread. Async work,
+ * such as streaming a message export, uses virtual threads as well.
+ *
+ * The number of concurrent requests is then limited by server.tomcat.max-connections and
+ * the database connection pool, not by server.tomcat.threads.max.
+ *
+ * Virtual threads need a Java 21 or later runtime. The application is still compiled for
+ * Java 17, so the executor is created reflectively and startup fails with a clear message
+ * on an older runtime.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Runs Tomcat's request processing on virtual threads.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Runs async request processing, such as StreamingResponseBody, on virtual threads.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("app.threads.virtual.enabled=true needs Java 21 or later, but the runtime is Java "
+                + Runtime.version(), e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.controller;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.dto.MessageView;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.ReactiveAccountService;
+import com.example.service.ReactiveMessageService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of SocialMediaController, active with the reactive profile.
+ *
+ * Serves the same REST contract for accounts and messages, with the same status codes and
+ * bodies; errors go through the same ExceptionAndErrorController. Message lists are written
+ * as a JSON array while the rows are still being read, and the database is only asked for
+ * more rows as the client consumes them, so a slow client does not make the server buffer
+ * the whole list. The batch, pagination and export extensions are only served by
+ * SocialMediaController.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveSocialMediaController {
+
+    private final ReactiveAccountService accountService;
+    private final ReactiveMessageService messageService;
+
+    public ReactiveSocialMediaController(ReactiveAccountService accountService, ReactiveMessageService messageService) {
+        this.accountService = accountService;
+        this.messageService = messageService;
+    }
+
+    @PostMapping("/register")
+    public Mono<Account> registerAccount(@RequestBody Account account) {
+        return accountService.register(account);
+    }
+
+    @PostMapping("/login")
+    public Mono<Account> login(@RequestBody Account account) {
+        return accountService.login(account.getUsername(), account.getPassword());
+    }
+
+    @PostMapping("/messages")
+    public Mono<MessageView> createMessage(@RequestBody Message message) {
+        return messageService.createMessage(message);
+    }
+
+    @GetMapping("/messages")
+    public Flux<MessageView> getAllMessages() {
+        return messageService.getAllMessages();
+    }
+
+    /**
+     * @return the message, or a 200 (OK) response with an empty body if it does not exist
+     */
+    @GetMapping("/messages/{messageId}")
+    public Mono<MessageView> getMessageById(@PathVariable int messageId) {
+        return messageService.getMessageById(messageId);
+    }
+
+    /**
+     * @return the number of deleted rows (1), or a 200 (OK) response with an empty body if the message did not exist
+     */
+    @DeleteMapping("/messages/{messageId}")
+    public Mono<ResponseEntity<Integer>> deleteMessageById(@PathVariable int messageId) {
+        return messageService.deleteMessageById(messageId)
+            .map(rows -> rows == 0
+                ? ResponseEntity.status(200).<Integer>build()
+                : ResponseEntity.status(200).body(rows));
+    }
+
+    @PatchMapping("/messages/{messageId}")
+    public Mono<Integer> updateMessage(@PathVariable int messageId, @RequestBody Message updatedMessage) {
+        return messageService.updateMessage(messageId, updatedMessage.getMessageText());
+    }
+
+    @GetMapping("/accounts/{accountId}/messages")
+    public Flux<MessageView> getAllMessagesFromUser(@PathVariable int accountId) {
+        return messageService.getAllMessagesFromUser(accountId);
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.controller;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,30 +16,68 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessagePage;
+import com.example.dto.MessageSearchResult;
+import com.example.dto.MessageView;
 import com.example.entity.Account;
 import com.example.entity.Message;
+import com.example.exception.AccountNotFoundException;
+import com.example.exception.DomainException;
+import com.example.exception.InvalidAccountException;
+import com.example.exception.InvalidBatchException;
+import com.example.exception.InvalidFollowException;
 import com.example.exception.InvalidLoginException;
+import com.example.exception.InvalidPageException;
+import com.example.exception.InvalidSearchQueryException;
+import com.example.exception.InvalidTimeRangeException;
+import com.example.exception.UsernameExistsException;
 import com.example.service.AccountService;
+import com.example.service.FeedService;
 import com.example.service.MessageService;
+import com.example.stream.MessageEventStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
- * TODO: You will need to write your own endpoints and handlers for your controller using Spring. The endpoints you will need can be
- * found in readme.md as well as the test cases. You be required to use the @GET/POST/PUT/DELETE/etc Mapping annotations
- * where applicable as well as the @ResponseBody and @PathVariable annotations. You should
- * refer to prior mini-project labs and lecture materials for guidance on how a controller may be built.
+ * The REST API for accounts, messages, hashtags and mentions, and the follow graph.
+ *
+ * Handlers only map requests to AccountService, MessageService and FeedService and their
+ * results to responses; validation errors are thrown as DomainExceptions and turned into
+ * status codes by ExceptionAndErrorController. Paginated message lists return the cursor of
+ * the next page in the X-Next-Cursor header. Active unless the reactive profile is, in which
+ * case ReactiveSocialMediaController serves the API.
  */
 @RestController
+@Profile("!reactive")
 public class SocialMediaController {
 
+    /** Response header carrying the cursor of the next page of a paginated message list */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /** Response header carrying the number of messages matching a search, on all pages */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private AccountService accountService;
     private MessageService messageService;
+    private FeedService feedService;
+    private MessageEventStream messageEventStream;
+    private ObjectWriter messageWriter;
 
     @Autowired
-    public SocialMediaController(AccountService accountService, MessageService messageService){
+    public SocialMediaController(AccountService accountService, MessageService messageService,
+                                 FeedService feedService, MessageEventStream messageEventStream,
+                                 ObjectMapper objectMapper){
         this.accountService = accountService;
         this.messageService = messageService;
+        this.feedService = feedService;
+        this.messageEventStream = messageEventStream;
+        this.messageWriter = objectMapper.writerFor(MessageView.class);
     }
 
     
@@ -49,8 +93,8 @@ public class SocialMediaController {
      *         to have a non-blank username and a password of at least 4 characters.
      * @return A ResponseEntity containing the newly created Account object. The HTTP Status is set to 200 (OK) if
      *         registration is successful, and the account details are returned in the body of the response.
-     * @throws IllegalArgumentException If the username already exists, or if the username or password 
-     *         do not meet the requirements.
+     * @throws UsernameExistsException If the username already exists.
+     * @throws InvalidAccountException If the username or password do not meet the requirements.
      */
     @PostMapping("/register")
     public ResponseEntity<Account> register(@RequestBody Account account) {
@@ -83,30 +127,175 @@ public class SocialMediaController {
      * and and the postedBy field to ensure it references an existing account in
      * the database. If valid, saves the message to the database. 
      *
+     * When write-behind is enabled with app.write-behind.acknowledge=enqueue, the message is
+     * only queued for writing and the response is sent before it is committed.
+     *
      * @param message The Message object containing the text to be posted. Must include a valid
      *        postedBy account ID and valid messageText.
      * @return a ResponseEntity containing the newly created Message object, including the generated messageId.
-     *         HTTP Status code is set to 200 (OK) if the message is created successfully.
-     * @throws IllegalArgumentException if the message contents are invalid.
+     *         HTTP Status code is set to 200 (OK) if the message is created successfully, or
+     *         202 (Accepted) if it has been queued for writing.
+     * @throws DomainException if the postedBy account does not exist, the message text is invalid
+     *         or the write-behind queue is full.
      */
     @PostMapping("/messages")
     public ResponseEntity<Message> createMessage(@RequestBody Message message){
+        if (messageService.isAcknowledgeOnEnqueue()){
+            Message acceptedMessage = messageService.acceptMessage(message);
+            return ResponseEntity.status(202).body(acceptedMessage);
+        }
         Message createdMessage = messageService.createMessage(message);
         return ResponseEntity.status(200).body(createdMessage);
     }
 
+    /**
+     * Handles POST request to create a batch of new messages.
+     *
+     * Accepts a JSON array of Message objects. Each message is validated with the same rules
+     * as POST /messages, and all valid messages are saved together. Invalid messages do not
+     * prevent the valid ones from being saved.
+     *
+     * @param messages The Message objects to be posted, each with a valid postedBy account ID and valid messageText.
+     * @return a ResponseEntity containing one result per message, in request order. Each result holds
+     *         the status (200 or 400) and either the created Message or the validation error.
+     *         HTTP Status code is set to 200 (OK) once the batch has been processed.
+     * @throws InvalidBatchException if the batch is empty or too large.
+     */
+    @PostMapping("/messages/batch")
+    public ResponseEntity<List<BatchItemResult>> createMessages(@RequestBody List<Message> messages){
+        List<BatchItemResult> results = messageService.createMessages(messages);
+        return ResponseEntity.status(200).body(results);
+    }
+
     /**
      * Handles GET request to retrieve all messages.
      * 
      * This method fetches all messages from the database. If there are no messages
      * in the database, it will return an empty list. In both cases, the HTTP Status code is 200 (OK).
      * 
+     * If a limit or an after cursor is provided, a single page of messages is returned instead,
+     * newest first. When more messages follow, the cursor for the next page is returned in
+     * the X-Next-Cursor response header.
+     * 
+     * If since or until is provided, only the messages posted in the [since, until) range are
+     * returned, oldest first. They can be paged with limit and after in the same way.
+     * 
+     * @param limit the optional maximum number of messages to return
+     * @param after the optional cursor returned with the previous page
+     * @param since the optional earliest timePostedEpoch to include
+     * @param until the optional timePostedEpoch at which to stop (exclusive)
      * @return A ResponseEntity containing a list of all messages and a HTTP Status code 200 (OK)
+     * @throws InvalidPageException if the limit is out of range or the cursor is invalid
+     * @throws InvalidTimeRangeException if since is not before until
      */
     @GetMapping("/messages")
-    public ResponseEntity<List<Message>> getAllMessages(){
-        List<Message> allMessages = messageService.getAllMessages();
-        return ResponseEntity.status(200).body(allMessages);
+    public ResponseEntity<List<MessageView>> getAllMessages(@RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Long since,
+                                                        @RequestParam(required = false) Long until){
+        if (since != null || until != null){
+            if (limit == null && after == null){
+                return ResponseEntity.status(200).body(messageService.getMessagesInTimeRange(since, until));
+            }
+            return toPageResponse(messageService.getMessagesPageInTimeRange(since, until, limit, after));
+        }
+        if (limit == null && after == null){
+            List<MessageView> allMessages = messageService.getAllMessages();
+            return ResponseEntity.status(200).body(allMessages);
+        }
+        return toPageResponse(messageService.getMessagesPage(limit, after));
+    }
+
+    /**
+     * Handles GET request to retrieve the number of stored messages.
+     * 
+     * The count is served from in-process counters instead of being computed from the
+     * message table, so it can be polled often.
+     * 
+     * @return A ResponseEntity containing the number of messages and a HTTP Status code 200 (OK)
+     */
+    @GetMapping("/messages/count")
+    public ResponseEntity<Long> getMessageCount(){
+        return ResponseEntity.status(200).body(messageService.getMessageCount());
+    }
+
+    /**
+     * Handles GET request to export messages as newline-delimited JSON.
+     * 
+     * Messages are streamed to the client as they are read from the database, one JSON
+     * object per line, in message ID order. The full result is never held in memory, so
+     * the export can be as large as the message table.
+     * 
+     * @param postedBy the optional account ID to export messages for
+     * @param since the optional earliest timePostedEpoch to include
+     * @param until the optional timePostedEpoch at which to stop (exclusive)
+     * @return A ResponseEntity with HTTP Status code 200 (OK) streaming an application/x-ndjson body
+     * @throws InvalidTimeRangeException if since is not before until
+     */
+    @GetMapping("/messages/export")
+    public ResponseEntity<StreamingResponseBody> exportMessages(@RequestParam(required = false) Integer postedBy,
+                                                                @RequestParam(required = false) Long since,
+                                                                @RequestParam(required = false) Long until){
+        // Reject a bad range before the response is committed, once streaming starts the status cannot change
+        messageService.validateTimeRange(since, until);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            messageService.exportMessages(postedBy, since, until, message -> {
+                try {
+                    out.write(messageWriter.writeValueAsBytes(message));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.status(200).contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Handles GET request to stream message changes as Server-Sent Events.
+     * 
+     * Every message created, updated or deleted after the client connects is pushed as a
+     * created, updated or deleted event carrying the message as JSON, with the event number
+     * as its ID. A client that reconnects with the Last-Event-ID header is first sent the
+     * events it missed, or a reset event if they are too old to be replayed.
+     * 
+     * @param postedBy the optional account ID to stream the events of
+     * @param lastEventId the optional ID of the last event the client received
+     * @return An SseEmitter streaming a text/event-stream body with HTTP Status code 200 (OK)
+     * @throws IOException if the stream cannot be opened
+     */
+    @GetMapping(path = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(@RequestParam(required = false) Integer postedBy,
+                                     @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) throws IOException{
+        return messageEventStream.subscribe(postedBy, lastEventId);
+    }
+
+    /**
+     * Handles GET request to search the text of all messages.
+     * 
+     * Returns the messages containing every word of the query, best match first. Words are
+     * matched whole and case-insensitively. Results are paged with limit and offset, and the
+     * total number of matches is returned in the X-Total-Count response header.
+     * 
+     * @param q the words to search for
+     * @param postedBy the optional account ID to search the messages of
+     * @param limit the optional maximum number of messages to return
+     * @param offset the optional number of ranked matches to skip
+     * @return A ResponseEntity containing the matching messages and a HTTP Status code 200 (OK)
+     * @throws InvalidSearchQueryException if the query has no words or too many
+     * @throws InvalidPageException if the limit or offset is out of range
+     */
+    @GetMapping("/messages/search")
+    public ResponseEntity<List<MessageView>> searchMessages(@RequestParam(required = false) String q,
+                                                            @RequestParam(required = false) Integer postedBy,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) Integer offset){
+        MessageSearchResult result = messageService.searchMessages(q, postedBy, limit, offset);
+        return ResponseEntity.status(200)
+            .header(TOTAL_COUNT_HEADER, String.valueOf(result.getTotalMatches()))
+            .body(result.getMessages());
     }
 
     /**
@@ -122,8 +311,8 @@ public class SocialMediaController {
      *         is set to 200 (OK) in both cases.
      */
     @GetMapping("/messages/{messageId}")
-    public ResponseEntity<Message> getMessageById(@PathVariable int messageId){
-        Message message = messageService.getMessageById(messageId);
+    public ResponseEntity<MessageView> getMessageById(@PathVariable int messageId){
+        MessageView message = messageService.getMessageById(messageId);
         return ResponseEntity.status(200).body(message);
     }
 
@@ -158,13 +347,13 @@ public class SocialMediaController {
      * If the update is succesful, the response body will contain the number of rows affected (1)
      * and the HTTP Status will be 200 (OK)
      * If the message does not exist or the new message text is invalid (blank or exceeds 255 characters),
-     * an IllegalArgumentException will be thrown (handled by global exception handler) 
+     * a DomainException will be thrown (handled by global exception handler) 
      * and the the HTTP Status will be 400 (Client Error).
      * 
      * @param messageId the ID of the message to be updated.
      * @param updatedMessage the message object containing the new text to be updated
      * @return a ResponseEntity containing the number of rows affected (1 if the update is successful)
-     * @throws IllegalArgumentException if the message does not exist or the message text is invalid (blank or exceeds 255 characters)
+     * @throws DomainException if the message does not exist or the message text is invalid (blank or exceeds 255 characters)
      */
     @PatchMapping("messages/{messageId}")
     public ResponseEntity<Integer> updateMessage(@PathVariable int messageId, @RequestBody Message updatedMessage){
@@ -181,15 +370,167 @@ public class SocialMediaController {
      * If there are no messages for the specified account, an empty list will be returned.
      * In both cases, the HTTP Status will be 200 (OK)
      *
+     * If a limit or an after cursor is provided, a single page of messages is returned instead,
+     * newest first, with the cursor for the next page in the X-Next-Cursor response header.
+     *
+     * If since or until is provided, only the messages posted in the [since, until) range are
+     * returned, oldest first. They can be paged with limit and after in the same way.
+     *
      * @param accountId The unique identifier for the account whose messages are to be retrieved.
      *        This ID corresponds to an existing account in the system.
+     * @param limit the optional maximum number of messages to return
+     * @param after the optional cursor returned with the previous page
+     * @param since the optional earliest timePostedEpoch to include
+     * @param until the optional timePostedEpoch at which to stop (exclusive)
      * @return A ResponseEntity containing the HTTP status code (200 OK) and a list of Message objects.
      *         The list will be empty if no messages exist for the given account.
      */
     @GetMapping("/accounts/{accountId}/messages")
-    public ResponseEntity<List<Message>> getAllMesssagesFromUser(@PathVariable int accountId){
-        List<Message> allMessagesFromUser = messageService.getAllMessagesFromUser(accountId);
-        return ResponseEntity.status(200).body(allMessagesFromUser);
+    public ResponseEntity<List<MessageView>> getAllMesssagesFromUser(@PathVariable int accountId,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) Long since,
+                                                                 @RequestParam(required = false) Long until){
+        if (since != null || until != null){
+            if (limit == null && after == null){
+                return ResponseEntity.status(200).body(messageService.getMessagesInTimeRangeFromUser(accountId, since, until));
+            }
+            return toPageResponse(messageService.getMessagesPageInTimeRangeFromUser(accountId, since, until, limit, after));
+        }
+        if (limit == null && after == null){
+            List<MessageView> allMessagesFromUser = messageService.getAllMessagesFromUser(accountId);
+            return ResponseEntity.status(200).body(allMessagesFromUser);
+        }
+        return toPageResponse(messageService.getMessagesPageFromUser(accountId, limit, after));
+    }
+
+    /**
+     * Handles GET request to retrieve the number of messages posted by a specific user,
+     * served from in-process counters like GET /messages/count.
+     * 
+     * @param accountId The unique identifier for the account whose messages are to be counted.
+     * @return A ResponseEntity containing the number of messages and a HTTP Status code 200 (OK)
+     * @throws AccountNotFoundException if the account does not exist
+     */
+    @GetMapping("/accounts/{accountId}/messages/count")
+    public ResponseEntity<Long> getMessageCountFromUser(@PathVariable int accountId){
+        return ResponseEntity.status(200).body(messageService.getMessageCountFromUser(accountId));
+    }
+
+    /**
+     * Handles GET request to retrieve the messages with a hashtag, newest first.
+     * 
+     * The hashtag may be given with or without its leading '#' (encoded as %23), and is
+     * matched case-insensitively. Results are paged like the timelines: when more messages
+     * follow, the cursor for the next page is returned in the X-Next-Cursor response header.
+     * 
+     * @param tag the hashtag to retrieve the messages of
+     * @param limit the optional maximum number of messages to return
+     * @param after the optional cursor returned with the previous page
+     * @return A ResponseEntity containing the page of messages and a HTTP Status code 200 (OK).
+     *         The list will be empty if no message has the hashtag.
+     * @throws InvalidPageException if the limit is out of range or the cursor is invalid
+     */
+    @GetMapping("/tags/{tag}/messages")
+    public ResponseEntity<List<MessageView>> getTaggedMessages(@PathVariable String tag,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               @RequestParam(required = false) String after){
+        return toPageResponse(messageService.getTaggedMessagesPage(tag, limit, after));
+    }
+
+    /**
+     * Handles GET request to retrieve the messages mentioning an account (as @username), newest first.
+     * 
+     * Results are paged like the timelines: when more messages follow, the cursor for the
+     * next page is returned in the X-Next-Cursor response header.
+     * 
+     * @param accountId The unique identifier for the mentioned account.
+     * @param limit the optional maximum number of messages to return
+     * @param after the optional cursor returned with the previous page
+     * @return A ResponseEntity containing the page of messages and a HTTP Status code 200 (OK).
+     *         The list will be empty if the account has not been mentioned.
+     * @throws AccountNotFoundException if the account does not exist
+     * @throws InvalidPageException if the limit is out of range or the cursor is invalid
+     */
+    @GetMapping("/accounts/{accountId}/mentions")
+    public ResponseEntity<List<MessageView>> getMentions(@PathVariable int accountId,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) String after){
+        return toPageResponse(messageService.getMentionsPage(accountId, limit, after));
+    }
+
+    /**
+     * Handles POST request to make an account follow another one.
+     * 
+     * If the account started following the other one, the response body will contain the number 1.
+     * If it already followed it, the response body will be empty. In both cases, the HTTP Status is 200 (OK).
+     * 
+     * @param accountId The unique identifier for the following account.
+     * @param followeeId The unique identifier for the account to follow.
+     * @return a ResponseEntity with status 200 (OK), containing 1 if the follow was added, or empty otherwise.
+     * @throws InvalidFollowException if the account tries to follow itself
+     * @throws AccountNotFoundException if either account does not exist
+     */
+    @PostMapping("/accounts/{accountId}/following/{followeeId}")
+    public ResponseEntity<Integer> follow(@PathVariable int accountId, @PathVariable int followeeId){
+        if (!feedService.follow(accountId, followeeId)){
+            return ResponseEntity.status(200).build();
+        }
+        return ResponseEntity.status(200).body(1);
+    }
+
+    /**
+     * Handles DELETE request to make an account stop following another one.
+     * 
+     * If the account followed the other one, the response body will contain the number 1.
+     * If it did not, the response body will be empty. In both cases, the HTTP Status is 200 (OK).
+     * 
+     * @param accountId The unique identifier for the following account.
+     * @param followeeId The unique identifier for the account to unfollow.
+     * @return a ResponseEntity with status 200 (OK), containing 1 if the follow was removed, or empty otherwise.
+     * @throws InvalidFollowException if the account tries to unfollow itself
+     * @throws AccountNotFoundException if either account does not exist
+     */
+    @DeleteMapping("/accounts/{accountId}/following/{followeeId}")
+    public ResponseEntity<Integer> unfollow(@PathVariable int accountId, @PathVariable int followeeId){
+        if (!feedService.unfollow(accountId, followeeId)){
+            return ResponseEntity.status(200).build();
+        }
+        return ResponseEntity.status(200).body(1);
+    }
+
+    /**
+     * Handles GET request to retrieve the feed of an account: the messages of the accounts
+     * it follows, newest first.
+     * 
+     * Results are paged like the timelines: when more messages follow, the cursor for the
+     * next page is returned in the X-Next-Cursor response header.
+     * 
+     * @param accountId The unique identifier for the account whose feed is to be retrieved.
+     * @param limit the optional maximum number of messages to return
+     * @param after the optional cursor returned with the previous page
+     * @return A ResponseEntity containing the page of messages and a HTTP Status code 200 (OK).
+     *         The list will be empty if the account follows no one, or no one it follows has posted.
+     * @throws AccountNotFoundException if the account does not exist
+     * @throws InvalidPageException if the limit is out of range or the cursor is invalid
+     */
+    @GetMapping("/accounts/{accountId}/feed")
+    public ResponseEntity<List<MessageView>> getFeed(@PathVariable int accountId,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) String after){
+        return toPageResponse(feedService.getFeedPage(accountId, limit, after));
+    }
+
+    /**
+     * Builds the response for a page of messages, adding the next page cursor header if more messages follow.
+     */
+    private ResponseEntity<List<MessageView>> toPageResponse(MessagePage page){
+        if (page.hasNext()){
+            return ResponseEntity.status(200)
+                .header(NEXT_CURSOR_HEADER, page.getNextCursor().encode())
+                .body(page.getMessages());
+        }
+        return ResponseEntity.status(200).body(page.getMessages());
     }
 
 }
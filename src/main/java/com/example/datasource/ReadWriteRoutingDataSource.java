@@ -0,0 +1,101 @@
+package com.example.datasource;
+
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Routes connections of read-only service transactions to the replica and everything else to the primary.
+ *
+ * Only transactions started by a @Transactional(readOnly = true) method of the service layer
+ * may go to the replica, and only if the ReplicaRoutingPolicy allows it for the client.
+ * Read-only repository calls made by write operations, such as the account check before a
+ * message is saved, start their own transaction and therefore read from the primary.
+ *
+ * Any other use of the primary during a request marks the request as a write, so the
+ * ReadYourWritesInterceptor can keep its client on the primary afterwards.
+ *
+ * Nothing read from the replica is put in a shared cache, where it could outlive the
+ * client's read-your-writes window: the in-process caches load through readFromPrimary, and
+ * Hibernate sessions reading from the replica only read from the second-level and query caches.
+ *
+ * The routing decision is made when a connection is first used, so this data source must be
+ * wrapped in a LazyConnectionDataSourceProxy; the transaction manager asks for its connection
+ * before the transaction has been marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Lookup keys of the target data sources */
+    public enum Target { PRIMARY, REPLICA }
+
+    /** Request attribute set once a request has used the primary for anything but a read-only transaction */
+    static final String WRITE_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".WRITE";
+
+    /** Prefix of the names of transactions started by the service layer */
+    private static final String SERVICE_TRANSACTION_PREFIX = "com.example.service.";
+
+    /** Set while the current thread reads a value that is going to be cached */
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final ReplicaRoutingPolicy policy;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ReadWriteRoutingDataSource(ReplicaRoutingPolicy policy, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.policy = policy;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Runs a read that must see the primary, such as loading a value into a cache. If the read
+     * is the first to use the current transaction's connection, the transaction reads from the
+     * primary. Has no effect when no replica is configured.
+     *
+     * @param read the read to run
+     * @return the result of the read
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_ONLY.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (request != null) {
+                request.setAttribute(WRITE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            return Target.PRIMARY;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName == null || !transactionName.startsWith(SERVICE_TRANSACTION_PREFIX) || PRIMARY_ONLY.get() != null) {
+            return Target.PRIMARY;
+        }
+        boolean replica = request instanceof ServletRequestAttributes
+            ? policy.canReadFromReplica(ReplicaRoutingPolicy.clientId(((ServletRequestAttributes) request).getRequest()))
+            : policy.isReplicaFresh();
+        if (!replica) {
+            return Target.PRIMARY;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory.getObject());
+        if (holder != null) {
+            holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.datasource;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Records every completed request that wrote to the primary with the ReplicaRoutingPolicy,
+ * so the client that sent it keeps reading from the primary until the replica has caught up
+ * with the write.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final ReplicaRoutingPolicy policy;
+
+    public ReadYourWritesInterceptor(ReplicaRoutingPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ReadWriteRoutingDataSource.WRITE_ATTRIBUTE) != null) {
+            policy.recordWrite(ReplicaRoutingPolicy.clientId(request));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.datasource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Decides whether a read may be served by the replica.
+ *
+ * A read goes to the replica only if the replica is within the configured lag of the
+ * primary, and the client has not written anything the replica may not have yet
+ * (read-your-writes). The replica's lag is the age of the primary snapshot it last applied.
+ *
+ * Clients are told apart by the X-Client-Id request header, or by their remote address
+ * if they do not send one. After a write request completes, the client reads from the
+ * primary until the replica has applied a snapshot taken after that write.
+ */
+public class ReplicaRoutingPolicy {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final long maxLagNanos;
+
+    /** System.nanoTime() at which the snapshot last applied to the replica was taken */
+    private volatile long snapshotNanos;
+    private volatile boolean synced;
+
+    /** System.nanoTime() of the last write per client, until the replica has caught up with it */
+    private final ConcurrentMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingPolicy(long maxLagNanos) {
+        this.maxLagNanos = maxLagNanos;
+    }
+
+    /**
+     * @return true if the replica is within the configured lag of the primary
+     */
+    public boolean isReplicaFresh() {
+        return synced && System.nanoTime() - snapshotNanos <= maxLagNanos;
+    }
+
+    /**
+     * @param clientId the client that is reading
+     * @return true if the client may read from the replica
+     */
+    public boolean canReadFromReplica(String clientId) {
+        if (!isReplicaFresh()) {
+            return false;
+        }
+        Long writeNanos = lastWriteNanos.get(clientId);
+        return writeNanos == null || writeNanos - snapshotNanos < 0;
+    }
+
+    /**
+     * Records that a client's write has completed, so its next reads see it.
+     *
+     * @param clientId the client that wrote
+     */
+    public void recordWrite(String clientId) {
+        lastWriteNanos.put(clientId, System.nanoTime());
+    }
+
+    /**
+     * Records that the replica has applied a snapshot of the primary.
+     *
+     * @param takenNanos System.nanoTime() from just before the snapshot was read from the primary
+     */
+    public void snapshotApplied(long takenNanos) {
+        snapshotNanos = takenNanos;
+        synced = true;
+        lastWriteNanos.values().removeIf(writeNanos -> writeNanos - takenNanos < 0);
+    }
+
+    /**
+     * @return the age of the replica's data in seconds, or NaN before the first snapshot was applied
+     */
+    public double getLagSeconds() {
+        return synced ? (System.nanoTime() - snapshotNanos) / 1e9 : Double.NaN;
+    }
+
+    /**
+     * @param request an HTTP request
+     * @return the ID of the client that sent it
+     */
+    public static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null ? clientId : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.cache.TimelineCache;
+
+/**
+ * Keeps a local H2 replica database in step with the primary.
+ *
+ * This stands in for database replication when both databases are local H2 instances. The
+ * replica gets a copy of the primary's account, message, message_tag and follow schema, and reads
+ * the primary's tables through H2 linked tables in the upstream schema. Every sync interval, it applies
+ * the difference between the primary and its own tables in one transaction: rows missing
+ * from the primary are deleted, new rows are inserted and changed rows are updated.
+ *
+ * The sync reports the rows it changed, so the timeline versions and the Hibernate query
+ * cache can drop anything that may have been loaded from the replica before it caught up.
+ * The MessageCache is left alone: it only loads messages from the primary, and the write
+ * path keeps it current, so evicting the messages a sync copies would only cause misses.
+ */
+public class ReplicaSynchronizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSynchronizer.class);
+
+    private static final String DELETE_MESSAGES =
+        "SELECT postedBy FROM OLD TABLE (DELETE FROM message " +
+        "WHERE messageId NOT IN (SELECT messageId FROM upstream.message))";
+    private static final String DELETE_ACCOUNTS =
+        "SELECT accountId FROM OLD TABLE (DELETE FROM account " +
+        "WHERE accountId NOT IN (SELECT accountId FROM upstream.account))";
+    private static final String MERGE_ACCOUNTS =
+        "SELECT accountId FROM FINAL TABLE (MERGE INTO account t USING upstream.account s ON t.accountId = s.accountId " +
+        "WHEN MATCHED AND (t.username <> s.username OR t.password IS DISTINCT FROM s.password) " +
+        "THEN UPDATE SET username = s.username, password = s.password " +
+        "WHEN NOT MATCHED THEN INSERT VALUES (s.accountId, s.username, s.password))";
+    private static final String MERGE_MESSAGES =
+        "SELECT postedBy FROM FINAL TABLE (MERGE INTO message t USING upstream.message s ON t.messageId = s.messageId " +
+        "WHEN MATCHED AND (t.postedBy IS DISTINCT FROM s.postedBy OR t.messageText IS DISTINCT FROM s.messageText " +
+        "OR t.timePostedEpoch IS DISTINCT FROM s.timePostedEpoch) " +
+        "THEN UPDATE SET postedBy = s.postedBy, messageText = s.messageText, timePostedEpoch = s.timePostedEpoch " +
+        "WHEN NOT MATCHED THEN INSERT VALUES (s.messageId, s.postedBy, s.messageText, s.timePostedEpoch))";
+    // Tag rows never change, they are only inserted and deleted
+    private static final String DELETE_TAGS =
+        "DELETE FROM message_tag WHERE (tag, messageId) NOT IN (SELECT tag, messageId FROM upstream.message_tag)";
+    private static final String MERGE_TAGS =
+        "MERGE INTO message_tag t USING upstream.message_tag s ON t.tag = s.tag AND t.messageId = s.messageId " +
+        "WHEN NOT MATCHED THEN INSERT VALUES (s.tag, s.messageId, s.timePostedEpoch)";
+    // Follow rows never change either
+    private static final String DELETE_FOLLOWS =
+        "DELETE FROM follow WHERE (followerId, followeeId) NOT IN (SELECT followerId, followeeId FROM upstream.follow)";
+    private static final String MERGE_FOLLOWS =
+        "MERGE INTO follow t USING upstream.follow s ON t.followerId = s.followerId AND t.followeeId = s.followeeId " +
+        "WHEN NOT MATCHED THEN INSERT VALUES (s.followerId, s.followeeId)";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final String primaryUrl;
+    private final String primaryUsername;
+    private final String primaryPassword;
+    private final Duration syncInterval;
+    private final ReplicaRoutingPolicy policy;
+    private final TimelineCache timelineCache;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private ScheduledExecutorService executor;
+
+    public ReplicaSynchronizer(DataSource primary, DataSource replica, String primaryUrl, String primaryUsername,
+                               String primaryPassword, Duration syncInterval, ReplicaRoutingPolicy policy,
+                               TimelineCache timelineCache,
+                               EntityManagerFactory entityManagerFactory) {
+        this.primary = primary;
+        this.replica = replica;
+        this.primaryUrl = primaryUrl;
+        this.primaryUsername = primaryUsername;
+        this.primaryPassword = primaryPassword;
+        this.syncInterval = syncInterval;
+        this.policy = policy;
+        this.timelineCache = timelineCache;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Copies the schema to the replica, applies the first snapshot and starts syncing every
+     * sync interval. Must be called once the primary's schema and seed data are in place.
+     */
+    public void start() throws SQLException {
+        copySchema();
+        sync();
+        executor = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "replica-sync"));
+        executor.scheduleWithFixedDelay(this::syncQuietly, syncInterval.toNanos(), syncInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Creates the primary's tables, indexes and sequences in the replica, and links the
+     * primary's tables into the upstream schema.
+     *
+     * Foreign keys are left out: each table is read from the primary in its own statement, so
+     * a snapshot may contain a message whose new account only shows up in the next one.
+     */
+    private void copySchema() throws SQLException {
+        List<String> ddl = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet script = statement.executeQuery("SCRIPT NODATA NOPASSWORDS NOSETTINGS TABLE account, message, message_tag, follow")) {
+            while (script.next()) {
+                ddl.add(script.getString(1));
+            }
+        }
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : ddl) {
+                if (!sql.startsWith("--") && !sql.contains("FOREIGN KEY")) {
+                    statement.execute(sql);
+                }
+            }
+            statement.execute("CREATE SCHEMA IF NOT EXISTS upstream");
+            for (String table : new String[] {"ACCOUNT", "MESSAGE", "MESSAGE_TAG", "FOLLOW"}) {
+                statement.execute("CREATE LINKED TABLE upstream." + table + "('org.h2.Driver', '" + quote(primaryUrl) + "', '"
+                    + quote(primaryUsername) + "', '" + quote(primaryPassword) + "', '" + table + "') READONLY");
+            }
+        }
+    }
+
+    private static String quote(String literal) {
+        return literal.replace("'", "''");
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Replica sync failed, retrying in {}", syncInterval, e);
+        }
+    }
+
+    /**
+     * Applies the current state of the primary to the replica.
+     */
+    void sync() throws SQLException {
+        long takenNanos = System.nanoTime();
+        List<Integer> changedTimelines = new ArrayList<>();
+        List<Integer> changedAccounts = new ArrayList<>();
+        try (Connection connection = replica.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                collectIds(statement, DELETE_MESSAGES, changedTimelines);
+                collectIds(statement, DELETE_ACCOUNTS, changedAccounts);
+                collectIds(statement, MERGE_ACCOUNTS, changedAccounts);
+                collectIds(statement, MERGE_MESSAGES, changedTimelines);
+                statement.executeUpdate(DELETE_TAGS);
+                statement.executeUpdate(MERGE_TAGS);
+                statement.executeUpdate(DELETE_FOLLOWS);
+                statement.executeUpdate(MERGE_FOLLOWS);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        policy.snapshotApplied(takenNanos);
+
+        changedTimelines.forEach(timelineCache::invalidate);
+        changedAccounts.forEach(timelineCache::invalidate);
+        if (!changedAccounts.isEmpty()) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+    }
+
+    private static void collectIds(Statement statement, String sql, List<Integer> changed) throws SQLException {
+        try (ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                changed.add(rows.getInt(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dto;
+
+
+/**
+ * The number of messages posted by one account.
+ */
+public class AccountMessageCount {
+
+    private final Integer postedBy;
+    private final long count;
+
+    public AccountMessageCount(Integer postedBy, long count) {
+        this.postedBy = postedBy;
+        this.count = count;
+    }
+
+    /**
+     * @return the ID of the account, or null for the messages without an author
+     */
+    public Integer getPostedBy() {
+        return postedBy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
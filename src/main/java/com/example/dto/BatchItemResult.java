@@ -0,0 +1,51 @@
+package com.example.dto;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single message in a batch ingestion request.
+ *
+ * Each result carries the position of the message in the request and the HTTP status the
+ * message would have received on its own: 200 with the persisted message, or 400 with the
+ * validation error.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private final int index;
+    private final int status;
+    private final Message message;
+    private final String error;
+
+    private BatchItemResult(int index, int status, Message message, String error) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+        this.error = error;
+    }
+
+    public static BatchItemResult success(int index, Message message) {
+        return new BatchItemResult(index, 200, message, null);
+    }
+
+    public static BatchItemResult failure(int index, String error) {
+        return new BatchItemResult(index, 400, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
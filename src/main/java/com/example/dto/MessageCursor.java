@@ -0,0 +1,73 @@
+package com.example.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.example.exception.InvalidPageException;
+
+/**
+ * Opaque position in a message timeline used for keyset (cursor) pagination.
+ *
+ * A cursor records the (timePostedEpoch, messageId) pair of the last message on a page.
+ * The next page is read by seeking to the rows that sort after that pair, so the database
+ * never has to skip over rows that were already returned.
+ *
+ * Clients should treat the encoded form as an opaque token and pass it back unchanged.
+ */
+public class MessageCursor {
+
+    private final long timePostedEpoch;
+    private final int messageId;
+
+    public MessageCursor(long timePostedEpoch, int messageId) {
+        this.timePostedEpoch = timePostedEpoch;
+        this.messageId = messageId;
+    }
+
+    /**
+     * Builds the cursor that points just past the provided message.
+     *
+     * @param message the last message of a page
+     * @return a cursor positioned at the provided message
+     */
+    public static MessageCursor of(MessageView message) {
+        // Every message has a post time, one is assigned when a message is created without it
+        return new MessageCursor(message.getTimePostedEpoch(), message.getMessageId());
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor token sent by the client
+     * @return the decoded cursor
+     * @throws InvalidPageException if the token is not a valid cursor
+     */
+    public static MessageCursor decode(String token) throws InvalidPageException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new MessageCursor(Long.parseLong(raw.substring(0, separator)),
+                                     Integer.parseInt(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidPageException("Invalid cursor.");
+        }
+    }
+
+    /**
+     * Encodes this cursor as a URL-safe token.
+     *
+     * @return the opaque cursor token
+     */
+    public String encode() {
+        String raw = timePostedEpoch + ":" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getTimePostedEpoch() {
+        return timePostedEpoch;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+}
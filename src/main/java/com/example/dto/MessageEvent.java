@@ -0,0 +1,64 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A change to a message, as pushed to the clients of GET /messages/stream.
+ *
+ * Created events carry the whole message. Updated events carry the new text, and deleted
+ * events only identify the message that is gone.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageEvent {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    private final String type;
+    private final Integer messageId;
+    private final Integer postedBy;
+    private final String messageText;
+    private final Long timePostedEpoch;
+
+    private MessageEvent(String type, Integer messageId, Integer postedBy, String messageText, Long timePostedEpoch) {
+        this.type = type;
+        this.messageId = messageId;
+        this.postedBy = postedBy;
+        this.messageText = messageText;
+        this.timePostedEpoch = timePostedEpoch;
+    }
+
+    public static MessageEvent created(MessageView message) {
+        return new MessageEvent(CREATED, message.getMessageId(), message.getPostedBy(), message.getMessageText(),
+            message.getTimePostedEpoch());
+    }
+
+    public static MessageEvent updated(int messageId, int postedBy, String messageText) {
+        return new MessageEvent(UPDATED, messageId, postedBy, messageText, null);
+    }
+
+    public static MessageEvent deleted(int messageId, int postedBy) {
+        return new MessageEvent(DELETED, messageId, postedBy, null, null);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getMessageId() {
+        return messageId;
+    }
+
+    public Integer getPostedBy() {
+        return postedBy;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    public Long getTimePostedEpoch() {
+        return timePostedEpoch;
+    }
+}
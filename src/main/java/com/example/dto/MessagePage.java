@@ -0,0 +1,36 @@
+package com.example.dto;
+
+import java.util.List;
+
+
+/**
+ * A single page of a message timeline.
+ *
+ * Holds the messages on the page and, if more messages follow, the cursor that
+ * the client passes back to read the next page.
+ */
+public class MessagePage {
+
+    private final List<MessageView> messages;
+    private final MessageCursor nextCursor;
+
+    public MessagePage(List<MessageView> messages, MessageCursor nextCursor) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MessageView> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return the cursor for the next page, or null if this is the last page
+     */
+    public MessageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.dto;
+
+import java.util.List;
+
+
+/**
+ * One page of message search results.
+ *
+ * Holds the matching messages on the page, best match first, and the number of messages
+ * matching the query on all pages.
+ */
+public class MessageSearchResult {
+
+    private final List<MessageView> messages;
+    private final int totalMatches;
+
+    public MessageSearchResult(List<MessageView> messages, int totalMatches) {
+        this.messages = messages;
+        this.totalMatches = totalMatches;
+    }
+
+    public List<MessageView> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return the number of messages matching the query, on all pages
+     */
+    public int getTotalMatches() {
+        return totalMatches;
+    }
+}
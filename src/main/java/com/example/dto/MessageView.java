@@ -0,0 +1,85 @@
+package com.example.dto;
+
+import java.util.Objects;
+
+import com.example.entity.Message;
+
+/**
+ * Read-only view of a message, used on the read path.
+ *
+ * Views are built directly from query results with a JPQL constructor expression, so reads
+ * do not create managed Message entities that Hibernate would snapshot for dirty checking.
+ * The JSON form has the same properties, in the same order, as a serialized Message.
+ */
+public class MessageView {
+
+    private final Integer messageId;
+    private final Integer postedBy;
+    private final String messageText;
+    private final Long timePostedEpoch;
+
+    public MessageView(Integer messageId, Integer postedBy, String messageText, Long timePostedEpoch) {
+        this.messageId = messageId;
+        this.postedBy = postedBy;
+        this.messageText = messageText;
+        this.timePostedEpoch = timePostedEpoch;
+    }
+
+    public Integer getMessageId() {
+        return messageId;
+    }
+
+    public Integer getPostedBy() {
+        return postedBy;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    public Long getTimePostedEpoch() {
+        return timePostedEpoch;
+    }
+
+    /**
+     * @return a copy of this view with the provided message text
+     */
+    public MessageView withMessageText(String messageText) {
+        return new MessageView(messageId, postedBy, messageText, timePostedEpoch);
+    }
+
+    /**
+     * @return a view of the provided Message entity
+     */
+    public static MessageView of(Message message) {
+        return new MessageView(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        MessageView other = (MessageView) obj;
+        return Objects.equals(messageId, other.messageId)
+            && Objects.equals(postedBy, other.postedBy)
+            && Objects.equals(messageText, other.messageText)
+            && Objects.equals(timePostedEpoch, other.timePostedEpoch);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(messageId, postedBy, messageText, timePostedEpoch);
+    }
+
+    @Override
+    public String toString() {
+        return "MessageView{" +
+                "messageId=" + messageId +
+                ", postedBy=" + postedBy +
+                ", messageText='" + messageText + '\'' +
+                ", timePostedEpoch=" + timePostedEpoch +
+                '}';
+    }
+}
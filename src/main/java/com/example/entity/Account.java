@@ -2,6 +2,8 @@ package com.example.entity;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * This is a class that models an Account.
  *
@@ -9,13 +11,16 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name="account")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 public class Account {
     /**
      * An id for this Account. You should use this as the Entity's ID.
      */
     @Column(name="accountId")
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Integer accountId;
     /**
      * A username for this Account (must be unique and not blank)
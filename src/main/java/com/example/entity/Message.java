@@ -14,7 +14,9 @@ public class Message {
      * An id for this message which will be automatically generated by the database.
      */
      @Column (name="messageId")
-     @Id @GeneratedValue
+     @Id
+     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+     @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", allocationSize = 50)
     private Integer messageId;
     /**
      * The id for the user who has posted this message. We will assume that this is provided by the front-end of this
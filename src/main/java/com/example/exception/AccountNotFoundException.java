@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a message is posted by, or messages are requested for, an account that does not exist.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class AccountNotFoundException extends DomainException {
+    /**
+     * Constructor for a new AccountNotFoundException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public AccountNotFoundException(String message) {
+        super(ErrorCode.ACCOUNT_NOT_FOUND, message);
+    }
+}
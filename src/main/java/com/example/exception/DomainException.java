@@ -0,0 +1,30 @@
+package com.example.exception;
+
+/**
+ * Base class of the errors thrown by the service layer for invalid requests.
+ *
+ * Every subclass carries the ErrorCode that decides the HTTP status of the response,
+ * so ExceptionAndErrorController maps it without looking at the message.
+ *
+ * These exceptions describe bad client input, not bugs, so they do not capture a stack
+ * trace. Rejecting a request costs no more than allocating the exception.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    private final ErrorCode errorCode;
+
+    /**
+     * Constructor for a new DomainException.
+     *
+     * @param errorCode The error code which decides the HTTP status of the response
+     * @param message The detail message which is returned as the response body
+     */
+    protected DomainException(ErrorCode errorCode, String message) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.exception;
+
+/**
+ * The errors the API reports, each with the HTTP status code it is returned with.
+ *
+ * The code is a stable, lower-case name for the error. It is used as the error tag of the
+ * app.errors metric.
+ */
+public enum ErrorCode {
+
+    // --- Account registration and login errors ---
+    USERNAME_EXISTS(409),
+    INVALID_ACCOUNT(400),
+    INVALID_LOGIN(401),
+
+    // --- Message related errors ---
+    ACCOUNT_NOT_FOUND(400),
+    MESSAGE_NOT_FOUND(400),
+    INVALID_MESSAGE_TEXT(400),
+    INVALID_BATCH_SIZE(400),
+    WRITE_QUEUE_FULL(429),
+    WRITE_TIMEOUT(503),
+
+    // --- Follow graph errors ---
+    INVALID_FOLLOW(400),
+
+    // --- Pagination and filtering errors ---
+    INVALID_PAGE(400),
+    INVALID_TIME_RANGE(400),
+    INVALID_SEARCH_QUERY(400),
+
+    RESOURCE_NOT_FOUND(404),
+    INVALID_REQUEST(400);
+
+    private final int status;
+    private final String code;
+
+    ErrorCode(int status) {
+        this.status = status;
+        this.code = name().toLowerCase();
+    }
+
+    /**
+     * @return the HTTP status code the error is returned with
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the lower-case name of the error, for example "username_exists"
+     */
+    public String getCode() {
+        return code;
+    }
+}
@@ -1,88 +1,83 @@
 package com.example.exception;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Global exception handler for REST API errors.
  * 
  * This class uses Spring's @RestControllerAdvice to handle specific exceptions thrown
  * accross the application and convert them into useful HTTP responses.
+ *
+ * Every mapped error is counted in the app.errors counter, tagged with the error code
+ * and the returned HTTP status.
  */
 @RestControllerAdvice
 public class ExceptionAndErrorController {
 
+    public static final String METRIC_NAME = "app.errors";
+
+    /** One counter per error code, indexed by ErrorCode.ordinal() */
+    private final Counter[] errorCounters;
+
+    @Autowired
+    public ExceptionAndErrorController(MeterRegistry meterRegistry){
+        ErrorCode[] errorCodes = ErrorCode.values();
+        this.errorCounters = new Counter[errorCodes.length];
+        for (ErrorCode errorCode : errorCodes) {
+            errorCounters[errorCode.ordinal()] = meterRegistry.counter(METRIC_NAME,
+                "error", errorCode.getCode(), "status", String.valueOf(errorCode.getStatus()));
+        }
+    }
+
     /**
-     * Handles validation errors during user registration.
+     * Handles the errors thrown by the service layer for invalid requests.
      *
-     * Maps different `IllegalArgumentException` messages to appropriate HTTP status codes:
+     * Each DomainException carries its ErrorCode, which holds the HTTP status code:
      * - 409 Conflict if the username already exists.
      * - 400 Bad Request if the username is blank or the password is too short.
+     * - 401 Unauthorized if the login credentials are invalid.
+     * - 400 Bad Request if the account or message does not exist, the message text or
+     *   batch size is invalid, the page, time range or search query is invalid, or an
+     *   account tries to follow itself.
+     * - 404 Not Found if a requested resource does not exist.
+     * - 429 Too Many Requests if the write-behind queue is full.
+     * - 503 Service Unavailable if a write-behind batch was not committed in time.
      *
-     * @param ex the thrown IllegalArgumentException during registration.
-     * @return a ResponseEntity with the appropriate status code and the exception message in the response body.
+     * @param ex the thrown DomainException.
+     * @return a ResponseEntity with the status code of the error and the exception message in the response body.
      */
-    @ExceptionHandler (IllegalArgumentException.class)
-    public ResponseEntity<Object> handleRegistrationErrors(IllegalArgumentException ex) {
-        String exMsg = ex.getMessage();
-
-        // --- Account registration errors ---
-
-        // Return status code 409 (Conflict) if the username already exists in the database
-        if (exMsg.contains("Username already exists")) {
-            return ResponseEntity.status(409).body(exMsg); 
-        }
-        // Return status code 400 (Bad Request) if the username is blank or the password is too short
-        else if (exMsg.contains("cannot be blank") || exMsg.contains("at least 4 characters")) {
-            return ResponseEntity.status(400).body(exMsg);
-        }
-
-        // --- Message related errors ---
-
-        // Return status code 400 (Bad Request) if the message's postedBy ID is not in the database
-        else if (exMsg.contains("The account does not exist")){
-            return ResponseEntity.status(400).body(exMsg);
-        }
-        // Return status code 400 (Bad Request) if the message ID is not in the database
-        else if (exMsg.contains("The message does not exist")){
-            return ResponseEntity.status(400).body(exMsg);
-        }
-        // Return status code 400 (Bad Request) if the message's text is blank or too long
-        else if (exMsg.contains("Message cannot be blank or over 255 characters")){
-            return ResponseEntity.status(400).body(exMsg);
-        }
-
-        else {
-            // Default to status code 400 (Bad Request) for any other invalid inputs
-            return ResponseEntity.status(400).body("Invalid request. Please check your input.");
-        }
+    @ExceptionHandler (DomainException.class)
+    public ResponseEntity<Object> handleDomainErrors(DomainException ex) {
+        return respond(ex.getErrorCode(), ex.getMessage());
     }
 
     /**
-     * Handles login errors when user credentials are invalid.
-     *
-     * Catches `InvalidLoginException` and returns a 401 Unauthorized response.
+     * Handles any other invalid input.
      *
-     * @param ex the thrown InvalidLoginException.
-     * @return a ResponseEntity with HTTP 401 status and the exception message in the response body.
+     * @param ex the thrown IllegalArgumentException.
+     * @return a ResponseEntity with HTTP 400 status and a generic error message in the response body.
      */
-    @ExceptionHandler (InvalidLoginException.class)
-    public ResponseEntity<Object> handleLoginErrors(InvalidLoginException ex){
-        return ResponseEntity.status(401).body(ex.getMessage());
+    @ExceptionHandler (IllegalArgumentException.class)
+    public ResponseEntity<Object> handleInvalidRequests(IllegalArgumentException ex) {
+        // Default to status code 400 (Bad Request) for any other invalid inputs
+        return respond(ErrorCode.INVALID_REQUEST, "Invalid request. Please check your input.");
     }
 
     /**
-     * Handles cases where a requested resource (such as a message or account) is not found.
-     * 
-     * Catches ResourceNotFoundException instances thrown by the service layer
-     * and returns an HTTP 404 Not Found response with a descriptive error message.
-     * 
-     * @param ex the thrown ResourceNotFoundException.
-     * @return a ResponseEntity with HTTP 404 status and the exception message in the response body.
+     * Counts an error and builds its response.
+     *
+     * @param errorCode the error, which holds the HTTP status code of the response.
+     * @param body the response body.
+     * @return a ResponseEntity with the status code of the error and the provided body.
      */
-    @ExceptionHandler (ResourceNotFoundException.class)
-    public ResponseEntity<Object> handleResourceNotFoundErrors(ResourceNotFoundException ex){
-        return ResponseEntity.status(404).body(ex.getMessage());
+    private ResponseEntity<Object> respond(ErrorCode errorCode, Object body) {
+        errorCounters[errorCode.ordinal()].increment();
+        return ResponseEntity.status(errorCode.getStatus()).body(body);
     }
 }
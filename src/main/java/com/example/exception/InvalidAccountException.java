@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a new account has a blank username or a password that is too short.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidAccountException extends DomainException {
+    /**
+     * Constructor for a new InvalidAccountException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidAccountException(String message) {
+        super(ErrorCode.INVALID_ACCOUNT, message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a batch of messages is empty or larger than the maximum batch size.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidBatchException extends DomainException {
+    /**
+     * Constructor for a new InvalidBatchException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidBatchException(String message) {
+        super(ErrorCode.INVALID_BATCH_SIZE, message);
+    }
+}
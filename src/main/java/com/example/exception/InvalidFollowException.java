@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when an account tries to follow or unfollow itself.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidFollowException extends DomainException {
+    /**
+     * Constructor for a new InvalidFollowException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidFollowException(String message) {
+        super(ErrorCode.INVALID_FOLLOW, message);
+    }
+}
@@ -9,13 +9,13 @@ package com.example.exception;
  * It is handled globally by the ExceptionAndErrorController and will return a 401 Unauthorized
  * HTTP response.
  */
-public class InvalidLoginException extends RuntimeException {
+public class InvalidLoginException extends DomainException {
     /**
      * Constructor for a new InvalidLoginException with the specified detail message.
      * 
      * @param message The detail message which describes the reason for the exception
      */
     public InvalidLoginException(String message) {
-        super(message);
+        super(ErrorCode.INVALID_LOGIN, message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when the text of a message is blank or over 255 characters.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidMessageException extends DomainException {
+    /**
+     * Constructor for a new InvalidMessageException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidMessageException(String message) {
+        super(ErrorCode.INVALID_MESSAGE_TEXT, message);
+    }
+}
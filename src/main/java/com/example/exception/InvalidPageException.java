@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a page of messages is requested with an out of range limit or an invalid cursor.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidPageException extends DomainException {
+    /**
+     * Constructor for a new InvalidPageException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidPageException(String message) {
+        super(ErrorCode.INVALID_PAGE, message);
+    }
+}
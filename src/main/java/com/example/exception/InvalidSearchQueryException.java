@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a message search is requested without any search terms, or with too many.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidSearchQueryException extends DomainException {
+    /**
+     * Constructor for a new InvalidSearchQueryException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidSearchQueryException(String message) {
+        super(ErrorCode.INVALID_SEARCH_QUERY, message);
+    }
+}
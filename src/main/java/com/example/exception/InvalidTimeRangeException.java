@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a time range is requested whose start is not before its end.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class InvalidTimeRangeException extends DomainException {
+    /**
+     * Constructor for a new InvalidTimeRangeException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public InvalidTimeRangeException(String message) {
+        super(ErrorCode.INVALID_TIME_RANGE, message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a message that does not exist is updated.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 400 Bad Request HTTP response.
+ */
+public class MessageNotFoundException extends DomainException {
+    /**
+     * Constructor for a new MessageNotFoundException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public MessageNotFoundException(String message) {
+        super(ErrorCode.MESSAGE_NOT_FOUND, message);
+    }
+}
@@ -11,13 +11,13 @@ package com.example.exception;
  * It is handled globally by the ExceptionAndErrorController and will return a
  * 404 Not Found HTTP response.
  */
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends DomainException {
     /**
      * Constructor for a new ResourceNotFoundException with the specified detail message.
      *
      * @param message A detailed message explaining what resource was not found.
      */
     public ResourceNotFoundException(String message){
-        super(message);
+        super(ErrorCode.RESOURCE_NOT_FOUND, message);
     }
 }
@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a user tries to register with a username that is already taken.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 409 Conflict HTTP response.
+ */
+public class UsernameExistsException extends DomainException {
+    /**
+     * Constructor for a new UsernameExistsException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public UsernameExistsException(String message) {
+        super(ErrorCode.USERNAME_EXISTS, message);
+    }
+}
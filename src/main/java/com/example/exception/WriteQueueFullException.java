@@ -0,0 +1,17 @@
+package com.example.exception;
+
+/**
+ * Thrown when a message cannot be accepted because the write-behind queue is full.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 429 Too Many Requests HTTP response.
+ */
+public class WriteQueueFullException extends DomainException {
+    /**
+     * Constructor for a new WriteQueueFullException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public WriteQueueFullException(String message) {
+        super(ErrorCode.WRITE_QUEUE_FULL, message);
+    }
+}
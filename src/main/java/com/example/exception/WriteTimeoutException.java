@@ -0,0 +1,18 @@
+package com.example.exception;
+
+/**
+ * Thrown when a message was queued for write-behind but its batch was not committed within
+ * the commit timeout. The message may still be written afterwards.
+ *
+ * It is handled globally by the ExceptionAndErrorController and will return a 503 Service Unavailable HTTP response.
+ */
+public class WriteTimeoutException extends DomainException {
+    /**
+     * Constructor for a new WriteTimeoutException with the specified detail message.
+     *
+     * @param message The detail message which describes the reason for the exception
+     */
+    public WriteTimeoutException(String message) {
+        super(ErrorCode.WRITE_TIMEOUT, message);
+    }
+}
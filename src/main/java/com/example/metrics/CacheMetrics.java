@@ -0,0 +1,55 @@
+package com.example.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.cache.HomeTimelineCache;
+import com.example.cache.MessageCache;
+import com.example.cache.TimelineCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the hit, miss and eviction counts of the in-process caches as the
+ * app.cache.gets and app.cache.evictions counters, tagged with the cache name.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private MessageCache messageCache;
+    private TimelineCache timelineCache;
+    private HomeTimelineCache homeTimelineCache;
+
+    @Autowired
+    public CacheMetrics(MessageCache messageCache, TimelineCache timelineCache, HomeTimelineCache homeTimelineCache){
+        this.messageCache = messageCache;
+        this.timelineCache = timelineCache;
+        this.homeTimelineCache = homeTimelineCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("app.cache.gets", messageCache, MessageCache::getHitCount)
+            .tags("cache", "messages", "result", "hit").register(registry);
+        FunctionCounter.builder("app.cache.gets", messageCache, MessageCache::getMissCount)
+            .tags("cache", "messages", "result", "miss").register(registry);
+        FunctionCounter.builder("app.cache.evictions", messageCache, MessageCache::getEvictionCount)
+            .tags("cache", "messages").register(registry);
+
+        FunctionCounter.builder("app.cache.gets", timelineCache, TimelineCache::getHitCount)
+            .tags("cache", "timelines", "result", "hit").register(registry);
+        FunctionCounter.builder("app.cache.gets", timelineCache, TimelineCache::getMissCount)
+            .tags("cache", "timelines", "result", "miss").register(registry);
+        FunctionCounter.builder("app.cache.evictions", timelineCache, TimelineCache::getEvictionCount)
+            .tags("cache", "timelines").register(registry);
+
+        FunctionCounter.builder("app.cache.gets", homeTimelineCache, HomeTimelineCache::getHitCount)
+            .tags("cache", "home-timelines", "result", "hit").register(registry);
+        FunctionCounter.builder("app.cache.gets", homeTimelineCache, HomeTimelineCache::getMissCount)
+            .tags("cache", "home-timelines", "result", "miss").register(registry);
+        FunctionCounter.builder("app.cache.evictions", homeTimelineCache, HomeTimelineCache::getEvictionCount)
+            .tags("cache", "home-timelines").register(registry);
+    }
+}
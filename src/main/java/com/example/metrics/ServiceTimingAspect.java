@@ -0,0 +1,74 @@
+package com.example.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public method of the service layer.
+ *
+ * Each call is recorded in the app.service.invocations timer, tagged with the service class,
+ * the method name and the simple name of the exception it threw ("none" if it returned normally).
+ * Percentiles and histogram buckets for the timer are configured in application.properties.
+ * The timers are registered on the first call of each method ending with each exception and
+ * then looked up by Method, so a call only reads the clock twice and records the time.
+ *
+ * The reactive services are left out: their methods only assemble a Mono or Flux, so the
+ * time spent inside them says nothing about the work done.
+ *
+ * HTTP endpoints are timed by Spring Boot (http.server.requests) and repository methods by
+ * Spring Data (spring.data.repository.invocations), so only the service layer is covered here.
+ */
+@Aspect
+@Component
+public class ServiceTimingAspect {
+
+    public static final String METRIC_NAME = "app.service.invocations";
+
+    private MeterRegistry meterRegistry;
+    private Clock clock;
+    /** The timers of each method, by the simple name of the exception ("none" if it returned normally) */
+    private final Map<Method, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceTimingAspect(MeterRegistry meterRegistry){
+        this.meterRegistry = meterRegistry;
+        this.clock = meterRegistry.config().clock();
+    }
+
+    @Around("execution(public * com.example.service..*(..)) && !within(com.example.service.Reactive*)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = clock.monotonicTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable t) {
+            exception = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            timer(((MethodSignature) joinPoint.getSignature()).getMethod(), exception)
+                .record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Method method, String exception) {
+        return timers.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+            .computeIfAbsent(exception, e -> Timer.builder(METRIC_NAME)
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", e)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.repository.MessageBatchWriter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the write-behind batches that could not be committed, and the messages lost with
+ * them, as the app.write-behind.failures counter tagged with what was counted.
+ */
+@Component
+@Profile("!reactive")
+public class WriteBehindMetrics implements MeterBinder {
+
+    private MessageBatchWriter messageBatchWriter;
+
+    @Autowired
+    public WriteBehindMetrics(MessageBatchWriter messageBatchWriter){
+        this.messageBatchWriter = messageBatchWriter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("app.write-behind.failures", messageBatchWriter, MessageBatchWriter::getFailedBatchCount)
+            .tags("unit", "batches").register(registry);
+        FunctionCounter.builder("app.write-behind.failures", messageBatchWriter, MessageBatchWriter::getFailedMessageCount)
+            .tags("unit", "messages").register(registry);
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.example.entity.Account;
@@ -11,30 +19,54 @@ import com.example.entity.Account;
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Integer>{
 
+    /**
+     * Checks whether an account with the provided ID exists.
+     * 
+     * Overrides the default existsById so the answer comes from the Hibernate query cache.
+     * Cached answers are discarded whenever the account table is written to.
+     * 
+     * @param accountId The ID of the account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Account a WHERE a.accountId = ?1")
+    boolean existsById(Integer accountId);
+
     /**
      * Retrieves an Account entity based on the provided username
      * 
      * This method performs a query to find an Account entity in the database where
-     * the username matches the provided value.
+     * the username matches the provided value. It is also used for logging a user in, with the
+     * password compared in AccountService, so passwords never become query cache keys.
      * 
      * @param username The username of the account to be retrieved.
      * @return An Optional<Account> containing the found account if it exists, or an empty
      *         Optional if no account with a matching username is found.
      */
     @Query
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Account> findByUsername(String username);
 
     /**
-     * Retrieves an Account entity based on the provided username and password.
+     * Retrieves which of the provided account IDs exist in the database.
      * 
-     * This method performs a query to find an Account entity where both the username and password 
-     * match the provided values. This method is used for logging a user in.
-     * @param username The username of the account to be retrieved
-     * @param password The password of the account to be retrieved
-     * @return An Optional<Account> containing the found account if the username and password match,
-     *         or an empty Optional if no account is found with the provided username and password.
+     * This method checks all of the IDs with a single IN query, which is used to validate
+     * the postedBy IDs of a batch of messages in one round trip.
+     * @param accountIds The account IDs to check
+     * @return The subset of the provided account IDs that belong to an existing account.
      */
-    @Query
-    Optional<Account> findByUsernameAndPassword(String username, String password);
+    @Query("SELECT a.accountId FROM Account a WHERE a.accountId IN ?1")
+    Set<Integer> findExistingAccountIds(Collection<Integer> accountIds);
+
+    /**
+     * Streams the usernames of all accounts.
+     * 
+     * Used to fill the username Bloom filter at startup without loading every account into memory.
+     * The returned Stream must be consumed inside a transaction and closed afterwards.
+     * @return A Stream of every registered username.
+     */
+    @Query("SELECT a.username FROM Account a")
+    Stream<String> streamAllUsernames();
 
 }
@@ -0,0 +1,87 @@
+package com.example.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The follow graph between accounts, stored in the follow table.
+ *
+ * Each row says that followerId follows followeeId. The primary key serves the accounts an
+ * account follows, and idx_follow_followee serves the followers of an account, which is what
+ * a new message is fanned out to.
+ */
+@Repository
+@Profile("!reactive")
+public class FollowRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FollowRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records that an account follows another one.
+     *
+     * @param followerId The ID of the following account.
+     * @param followeeId The ID of the followed account.
+     * @return true if the follow was added, false if it already existed.
+     */
+    public boolean follow(int followerId, int followeeId) {
+        try {
+            return jdbcTemplate.update("INSERT INTO follow (followerId, followeeId) SELECT ?, ? "
+                + "WHERE NOT EXISTS (SELECT 1 FROM follow WHERE followerId = ? AND followeeId = ?)",
+                followerId, followeeId, followerId, followeeId) == 1;
+        } catch (DuplicateKeyException e) {
+            // A concurrent request added the same follow
+            return false;
+        }
+    }
+
+    /**
+     * Removes a follow.
+     *
+     * @param followerId The ID of the following account.
+     * @param followeeId The ID of the followed account.
+     * @return true if the follow was removed, false if it did not exist.
+     */
+    public boolean unfollow(int followerId, int followeeId) {
+        return jdbcTemplate.update("DELETE FROM follow WHERE followerId = ? AND followeeId = ?", followerId, followeeId) == 1;
+    }
+
+    /**
+     * @param followerId The ID of an account.
+     * @return The IDs of the accounts it follows.
+     */
+    public List<Integer> findFolloweeIds(int followerId) {
+        return jdbcTemplate.queryForList("SELECT followeeId FROM follow WHERE followerId = ?", Integer.class, followerId);
+    }
+
+    /**
+     * @param followeeId The ID of an account.
+     * @return The IDs of the accounts following it.
+     */
+    public List<Integer> findFollowerIds(int followeeId) {
+        return jdbcTemplate.queryForList("SELECT followerId FROM follow WHERE followeeId = ?", Integer.class, followeeId);
+    }
+
+    /**
+     * @return The number of followers of every account that has at least one, by account ID.
+     */
+    public Map<Integer, Integer> countFollowers() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT followeeId, COUNT(*) FROM follow GROUP BY followeeId",
+            row -> {
+                counts.put(row.getInt(1), row.getInt(2));
+            });
+        return counts;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.repository;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.entity.Message;
+import com.example.exception.WriteQueueFullException;
+
+/**
+ * Write-behind inserts of new messages with group commit.
+ *
+ * Messages are assigned their ID when they are submitted and put on a bounded queue. A single
+ * writer thread inserts everything on the queue as one JDBC batch in one transaction, along
+ * with the messages' hashtags and mentions, either every flush interval or as soon as
+ * max-batch-size messages are waiting, whichever comes first. One commit is paid per batch
+ * instead of per message.
+ *
+ * IDs come from message_seq in blocks of 50 the same way Hibernate's pooled-lo optimizer
+ * takes them for Message, so IDs handed out here never collide with IDs of messages saved
+ * through MessageRepository.
+ *
+ * Switched on with app.write-behind.enabled=true; the writer thread only runs when enabled.
+ * Messages still on the queue are written before the application shuts down, and messages
+ * submitted once shutdown has begun are rejected. Batches that fail to commit, including with
+ * an Error, are logged, counted in getFailedBatchCount and getFailedMessageCount, and fail the
+ * futures of their messages; the writer thread carries on with the next batch.
+ *
+ * Callers waiting for a commit should wait at most getCommitTimeout (app.write-behind.commit-timeout).
+ */
+@Component
+@Profile("!reactive")
+public class MessageBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageBatchWriter.class);
+
+    /** IDs taken from message_seq per call; must match allocationSize of Message's generator */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String INSERT =
+        "INSERT INTO message (messageId, postedBy, messageText, timePostedEpoch) VALUES (?, ?, ?, ?)";
+
+    /**
+     * A submitted message and the future completed once it has been committed.
+     */
+    private static class PendingMessage {
+
+        private final Message message;
+        private final CompletableFuture<Message> committed = new CompletableFuture<>();
+
+        PendingMessage(Message message) {
+            this.message = message;
+        }
+    }
+
+    private final boolean enabled;
+    private final boolean acknowledgeOnEnqueue;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final Duration commitTimeout;
+    private final BlockingQueue<PendingMessage> queue;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private volatile boolean running;
+    private Thread writer;
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+
+    private long nextId;
+    private long idLimit;
+
+    public MessageBatchWriter(@Value("${app.write-behind.enabled:false}") boolean enabled,
+                              @Value("${app.write-behind.acknowledge:flush}") String acknowledge,
+                              @Value("${app.write-behind.queue-capacity:10000}") int queueCapacity,
+                              @Value("${app.write-behind.max-batch-size:500}") int maxBatchSize,
+                              @Value("${app.write-behind.flush-interval:5ms}") Duration flushInterval,
+                              @Value("${app.write-behind.commit-timeout:5s}") Duration commitTimeout,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        if (!acknowledge.equals("flush") && !acknowledge.equals("enqueue")) {
+            throw new IllegalStateException("app.write-behind.acknowledge must be flush or enqueue, but was " + acknowledge);
+        }
+        this.enabled = enabled;
+        this.acknowledgeOnEnqueue = acknowledge.equals("enqueue");
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.commitTimeout = commitTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            writer = new Thread(this::writeLoop, "message-batch-writer");
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops the writer thread after it has written every message still on the queue.
+     *
+     * A message submitted while the writer thread was exiting is written here, after the
+     * thread has been joined, so every accepted message is written or failed.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            signalBatchReady();
+            writer.join();
+            List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+            while (queue.drainTo(batch, maxBatchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @return true if messages should be created through this writer
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if a request is answered as soon as its message is queued (202 Accepted),
+     *         false if it waits until the message has been committed
+     */
+    public boolean isAcknowledgeOnEnqueue() {
+        return acknowledgeOnEnqueue;
+    }
+
+    /**
+     * @return how long a caller should wait for a submitted message to be committed
+     */
+    public Duration getCommitTimeout() {
+        return commitTimeout;
+    }
+
+    /**
+     * Assigns the message its ID and queues it for the next batch.
+     *
+     * @param message a validated message; its messageId is set before this method returns
+     * @return a future completed with the message once it has been committed, or completed
+     *         exceptionally if its batch could not be written
+     * @throws WriteQueueFullException if the queue is full or the writer has been stopped
+     */
+    public CompletableFuture<Message> submit(Message message) throws WriteQueueFullException {
+        if (!running) {
+            throw new WriteQueueFullException("Messages are no longer accepted for writing. Try again later.");
+        }
+        message.setMessageId(allocateId());
+        PendingMessage pending = new PendingMessage(message);
+        if (!queue.offer(pending)) {
+            throw new WriteQueueFullException("Too many messages are waiting to be written. Try again later.");
+        }
+        // stop may have drained the queue for the last time since running was checked. Taking
+        // the message back means nobody else will write it; otherwise it has been written or will be.
+        if (!running && queue.remove(pending)) {
+            throw new WriteQueueFullException("Messages are no longer accepted for writing. Try again later.");
+        }
+        if (queue.size() >= maxBatchSize) {
+            signalBatchReady();
+        }
+        return pending.committed;
+    }
+
+    /**
+     * @return the number of batches that could not be committed
+     */
+    public long getFailedBatchCount() {
+        return failedBatches.sum();
+    }
+
+    /**
+     * @return the number of messages in the batches that could not be committed
+     */
+    public long getFailedMessageCount() {
+        return failedMessages.sum();
+    }
+
+    private synchronized int allocateId() {
+        if (nextId == idLimit) {
+            nextId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR message_seq", Long.class);
+            idLimit = nextId + ID_ALLOCATION_SIZE;
+        }
+        return (int) nextId++;
+    }
+
+    private void signalBatchReady() {
+        lock.lock();
+        try {
+            batchReady.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            lock.lock();
+            try {
+                if (running && queue.size() < maxBatchSize) {
+                    batchReady.awaitNanos(flushIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                lock.unlock();
+            }
+            while (queue.drainTo(batch, maxBatchSize) > 0) {
+                write(batch);
+                batch.clear();
+                if (running && queue.size() < maxBatchSize) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, pending) -> {
+                    Message message = pending.message;
+                    statement.setInt(1, message.getMessageId());
+                    statement.setObject(2, message.getPostedBy(), Types.INTEGER);
+                    statement.setString(3, message.getMessageText());
+                    statement.setObject(4, message.getTimePostedEpoch(), Types.BIGINT);
+                });
+                List<Message> messages = new ArrayList<>(batch.size());
+                batch.forEach(pending -> messages.add(pending.message));
+                MessageTagStatements.insertTags(jdbcTemplate, messages);
+            });
+        } catch (Throwable e) {
+            // An Error must not end the writer thread; nothing would write the queue after it
+            failedBatches.increment();
+            failedMessages.add(batch.size());
+            log.error("Write-behind batch of {} messages failed", batch.size(), e);
+            batch.forEach(pending -> pending.committed.completeExceptionally(e));
+            return;
+        }
+        batch.forEach(pending -> pending.committed.complete(pending.message));
+    }
+}
@@ -1,30 +1,374 @@
 package com.example.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.dto.AccountMessageCount;
+import com.example.dto.MessageView;
 import com.example.entity.Message;
 
 @Repository
-public interface MessageRepository extends JpaRepository<Message, Integer>{
+public interface MessageRepository extends JpaRepository<Message, Integer>, MessageStore, MessageTagQueries {
+
+    /** Number of rows the JDBC driver fetches per round trip when streaming messages */
+    public static final String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Select clause shared by the read queries. It builds MessageView objects directly from the
+     * selected columns, so reads never create managed Message entities.
+     */
+    public static final String SELECT_VIEW =
+        "SELECT new com.example.dto.MessageView(m.messageId, m.postedBy, m.messageText, m.timePostedEpoch) FROM Message m";
+
+    /**
+     * Retrieves all messages in message ID order.
+     *
+     * @return A list of all messages, or an empty list if there are none.
+     */
+    @Query(SELECT_VIEW + " ORDER BY m.messageId")
+    public List<MessageView> findAllViews();
+
+    /**
+     * Retrieves a message by its ID.
+     *
+     * @param messageId The ID of the message to retrieve.
+     * @return An Optional containing the message if it exists, or an empty Optional otherwise.
+     */
+    @Query(SELECT_VIEW + " WHERE m.messageId = ?1")
+    public Optional<MessageView> findViewById(int messageId);
+
+    /**
+     * Retrieves the messages with the provided IDs in a single query.
+     *
+     * @param messageIds The IDs of the messages to retrieve.
+     * @return The messages that exist, in no particular order.
+     */
+    @Query(SELECT_VIEW + " WHERE m.messageId IN ?1")
+    public List<MessageView> findViewsByIds(Collection<Integer> messageIds);
 
     /**
      * Retrieves all messages posted by a specific account, identified by the given accountId.
      *
-     * This method performs a query to find all Message entities in the database where the 
+     * This method performs a query to find all messages in the database where the 
      * postedBy field (which represents the account ID of the user who posted the message) 
-     * matches the provided accountId.
+     * matches the provided accountId. The messages are ordered newest first, which lets the
+     * database read them straight from the (postedBy, timePostedEpoch, messageId) index.
+     * Ordering by postedBy first is a no-op for a single account, but lets the database
+     * see that the index order already matches.
      *
      * @param accountId The ID of the account whose messages are to be retrieved.
      *        This corresponds to the postedBy field in the Message entity.
-     * @return A list of Message entities associated with the specified account. 
+     * @return A list of messages associated with the specified account, newest first. 
      *         If no messages are found for the given account, an empty list is returned.
      * 
      */
-    @Query("SELECT m FROM Message m WHERE m.postedBy = ?1")
-    public List<Message> findAllMessagesByAccountId(int accountId);
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 ORDER BY m.postedBy, m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findAllMessagesByAccountId(int accountId);
+
+    /**
+     * Retrieves the newest messages, ordered by post time and then message ID (both descending).
+     *
+     * Only the page size of the provided Pageable is used; it is applied as a LIMIT so no
+     * count query is issued.
+     *
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    @Query(SELECT_VIEW + " ORDER BY m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findFirstPage(Pageable pageable);
+
+    /**
+     * Retrieves the messages that sort after the provided (timePostedEpoch, messageId) position.
+     *
+     * This is a keyset (seek) query: instead of skipping an OFFSET of rows, it filters on the
+     * position of the last message the client has seen, so every page costs the same to read.
+     * The position is written as a range on timePostedEpoch so the database can start the
+     * index scan at the cursor.
+     *
+     * @param timePostedEpoch The post time of the last message on the previous page.
+     * @param messageId The message ID of the last message on the previous page.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.timePostedEpoch <= ?1 AND (m.timePostedEpoch < ?1 OR m.messageId < ?2) " +
+           "ORDER BY m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findPageAfter(long timePostedEpoch, int messageId, Pageable pageable);
+
+    /**
+     * Retrieves the newest messages posted by a specific account, ordered by post time and
+     * then message ID (both descending).
+     *
+     * @param accountId The ID of the account whose messages are to be retrieved.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 ORDER BY m.postedBy, m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findFirstPageByAccountId(int accountId, Pageable pageable);
+
+    /**
+     * Retrieves the messages posted by a specific account that sort after the provided
+     * (timePostedEpoch, messageId) position.
+     *
+     * @param accountId The ID of the account whose messages are to be retrieved.
+     * @param timePostedEpoch The post time of the last message on the previous page.
+     * @param messageId The message ID of the last message on the previous page.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 " +
+           "AND m.timePostedEpoch <= ?2 AND (m.timePostedEpoch < ?2 OR m.messageId < ?3) " +
+           "ORDER BY m.postedBy, m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findPageByAccountIdAfter(int accountId, long timePostedEpoch, int messageId, Pageable pageable);
+
+    /**
+     * Retrieves the newest messages posted by any of the provided accounts, ordered by post time
+     * and then message ID (both descending).
+     *
+     * The accounts are read with one query and the page size is applied as a LIMIT, so no more
+     * than one page is returned however many accounts are provided.
+     *
+     * @param accountIds The IDs of the accounts whose messages are to be retrieved. Must not be empty.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.postedBy IN ?1 ORDER BY m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findFirstPageByAccountIds(Collection<Integer> accountIds, Pageable pageable);
+
+    /**
+     * Retrieves the messages posted by any of the provided accounts that sort after the provided
+     * (timePostedEpoch, messageId) position, newest first.
+     *
+     * @param accountIds The IDs of the accounts whose messages are to be retrieved. Must not be empty.
+     * @param timePostedEpoch The post time of the last message on the previous page.
+     * @param messageId The message ID of the last message on the previous page.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.postedBy IN ?1 " +
+           "AND m.timePostedEpoch <= ?2 AND (m.timePostedEpoch < ?2 OR m.messageId < ?3) " +
+           "ORDER BY m.timePostedEpoch DESC, m.messageId DESC")
+    public List<MessageView> findPageByAccountIdsAfter(Collection<Integer> accountIds, long timePostedEpoch, int messageId,
+                                                       Pageable pageable);
+
+    /**
+     * Retrieves the messages posted in the [since, until) time range, ordered by post time and
+     * then message ID (both ascending).
+     *
+     * The range is read in order as one range scan of the ascending timePostedEpoch index.
+     * An unpaged Pageable reads the whole range; otherwise its page size is applied as a LIMIT.
+     *
+     * @param since The earliest timePostedEpoch to include.
+     * @param until The timePostedEpoch at which to stop (exclusive).
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, oldest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.timePostedEpoch >= ?1 AND m.timePostedEpoch < ?2 " +
+           "ORDER BY m.timePostedEpoch, m.messageId")
+    public List<MessageView> findByTimeRange(long since, long until, Pageable pageable);
+
+    /**
+     * Retrieves the messages posted in the [since, until) time range that sort after the
+     * provided (timePostedEpoch, messageId) position, oldest first.
+     *
+     * @param since The earliest timePostedEpoch to include.
+     * @param until The timePostedEpoch at which to stop (exclusive).
+     * @param timePostedEpoch The post time of the last message on the previous page.
+     * @param messageId The message ID of the last message on the previous page.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, oldest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.timePostedEpoch >= ?1 AND m.timePostedEpoch < ?2 " +
+           "AND m.timePostedEpoch >= ?3 AND (m.timePostedEpoch > ?3 OR m.messageId > ?4) " +
+           "ORDER BY m.timePostedEpoch, m.messageId")
+    public List<MessageView> findByTimeRangeAfter(long since, long until, long timePostedEpoch, int messageId, Pageable pageable);
+
+    /**
+     * Retrieves the messages posted by a specific account in the [since, until) time range,
+     * oldest first, as one range scan of the ascending (postedBy, timePostedEpoch) index.
+     *
+     * @param accountId The ID of the account whose messages are to be retrieved.
+     * @param since The earliest timePostedEpoch to include.
+     * @param until The timePostedEpoch at which to stop (exclusive).
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, oldest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 AND m.timePostedEpoch >= ?2 AND m.timePostedEpoch < ?3 " +
+           "ORDER BY m.postedBy, m.timePostedEpoch, m.messageId")
+    public List<MessageView> findByAccountIdAndTimeRange(int accountId, long since, long until, Pageable pageable);
+
+    /**
+     * Retrieves the messages posted by a specific account in the [since, until) time range
+     * that sort after the provided (timePostedEpoch, messageId) position, oldest first.
+     *
+     * @param accountId The ID of the account whose messages are to be retrieved.
+     * @param since The earliest timePostedEpoch to include.
+     * @param until The timePostedEpoch at which to stop (exclusive).
+     * @param timePostedEpoch The post time of the last message on the previous page.
+     * @param messageId The message ID of the last message on the previous page.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, oldest first.
+     */
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 AND m.timePostedEpoch >= ?2 AND m.timePostedEpoch < ?3 " +
+           "AND m.timePostedEpoch >= ?4 AND (m.timePostedEpoch > ?4 OR m.messageId > ?5) " +
+           "ORDER BY m.postedBy, m.timePostedEpoch, m.messageId")
+    public List<MessageView> findByAccountIdAndTimeRangeAfter(int accountId, long since, long until, long timePostedEpoch,
+                                                              int messageId, Pageable pageable);
+
+    /**
+     * Reads the author of a message without loading the message.
+     *
+     * @param messageId The ID of the message.
+     * @return An Optional containing the postedBy ID of the message, or an empty Optional if
+     *         the message does not exist.
+     */
+    @Query("SELECT m.postedBy FROM Message m WHERE m.messageId = ?1")
+    public Optional<Integer> findPostedByById(int messageId);
+
+    /**
+     * Deletes a message by its ID with a single DELETE statement.
+     *
+     * Unlike deleteById, the message is not loaded into the persistence context first.
+     *
+     * @param messageId The ID of the message to delete.
+     * @return The number of rows deleted (1 if the message existed, 0 otherwise).
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Message m WHERE m.messageId = ?1")
+    public int bulkDeleteById(int messageId);
+
+    /**
+     * Updates the text of a message with a single UPDATE statement.
+     *
+     * Unlike findById followed by save, the message is not loaded or dirty checked.
+     *
+     * @param messageId The ID of the message to update.
+     * @param messageText The new text of the message.
+     * @return The number of rows updated (1 if the message existed, 0 otherwise).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Message m SET m.messageText = ?2 WHERE m.messageId = ?1")
+    public int bulkUpdateMessageText(int messageId, String messageText);
+
+    /**
+     * Deletes a message by its ID and returns its author.
+     *
+     * The author is read with a projection query and the message removed with a bulk DELETE,
+     * both in one transaction. The author is needed to invalidate the caches of its timeline.
+     *
+     * @param messageId The ID of the message to delete.
+     * @return An Optional containing the postedBy ID of the deleted message, or an empty
+     *         Optional if no message was deleted.
+     */
+    @Override
+    @Transactional
+    public default Optional<Integer> deleteMessageById(int messageId) {
+        Optional<Integer> postedBy = findPostedByById(messageId);
+        if (postedBy.isEmpty() || bulkDeleteById(messageId) == 0) {
+            return Optional.empty();
+        }
+        return postedBy;
+    }
+
+    /**
+     * Updates the text of a message and returns its author, like deleteMessageById.
+     *
+     * @param messageId The ID of the message to update.
+     * @param messageText The new text of the message.
+     * @return An Optional containing the postedBy ID of the updated message, or an empty
+     *         Optional if no message was updated.
+     */
+    @Override
+    @Transactional
+    public default Optional<Integer> updateMessageText(int messageId, String messageText) {
+        Optional<Integer> postedBy = findPostedByById(messageId);
+        if (postedBy.isEmpty() || bulkUpdateMessageText(messageId, messageText) == 0) {
+            return Optional.empty();
+        }
+        return postedBy;
+    }
+
+    /**
+     * Saves new messages and their hashtags and mentions in one transaction.
+     *
+     * @param messages the new messages.
+     * @return the saved messages, with their message IDs assigned.
+     */
+    @Override
+    @Transactional
+    public default <S extends Message> List<S> saveAllWithTags(List<S> messages) {
+        List<S> saved = saveAll(messages);
+        saveTags(saved);
+        return saved;
+    }
+
+    /**
+     * Streams every message in message ID order.
+     *
+     * The rows are read through a forward-only cursor with a bounded fetch size instead of
+     * being collected into a list. The returned Stream must be consumed inside a transaction
+     * and closed afterwards.
+     *
+     * @return A Stream of all messages.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_VIEW + " ORDER BY m.messageId")
+    public Stream<MessageView> streamAll();
+
+    /**
+     * Streams the messages posted in the [since, until) time range, in message ID order.
+     *
+     * @param since The earliest timePostedEpoch to include.
+     * @param until The timePostedEpoch at which to stop (exclusive).
+     * @return A Stream of the matching messages.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_VIEW + " WHERE m.timePostedEpoch >= ?1 AND m.timePostedEpoch < ?2 ORDER BY m.messageId")
+    public Stream<MessageView> streamByTimeRange(long since, long until);
+
+    /**
+     * Streams the messages posted by a specific account, in message ID order.
+     *
+     * @param accountId The ID of the account whose messages are to be streamed.
+     * @return A Stream of the matching messages.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 ORDER BY m.messageId")
+    public Stream<MessageView> streamByAccountId(int accountId);
+
+    /**
+     * Streams the messages posted by a specific account in the [since, until) time range, in message ID order.
+     *
+     * @param accountId The ID of the account whose messages are to be streamed.
+     * @param since The earliest timePostedEpoch to include.
+     * @param until The timePostedEpoch at which to stop (exclusive).
+     * @return A Stream of the matching messages.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_VIEW + " WHERE m.postedBy = ?1 AND m.timePostedEpoch >= ?2 AND m.timePostedEpoch < ?3 ORDER BY m.messageId")
+    public Stream<MessageView> streamByAccountIdAndTimeRange(int accountId, long since, long until);
+
+    /**
+     * Counts the messages of every account that has posted, in one pass over the postedBy index.
+     *
+     * @return The number of messages per posting account, in no particular order.
+     */
+    @Query("SELECT new com.example.dto.AccountMessageCount(m.postedBy, COUNT(m)) FROM Message m GROUP BY m.postedBy")
+    public List<AccountMessageCount> countMessagesByAccount();
 
 }
@@ -0,0 +1,77 @@
+package com.example.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+
+import com.example.dto.AccountMessageCount;
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+
+/**
+ * The message operations used by the service layer.
+ *
+ * MessageRepository implements them on the single message table. When sharding is enabled,
+ * the ShardedMessageStore implements them across several databases instead.
+ * See MessageRepository and MessageTagQueries for what each query returns. MessageRepository
+ * must also extend MessageTagQueries directly, Spring Data only looks up the implementations
+ * of a repository's own superinterfaces.
+ */
+public interface MessageStore extends MessageTagQueries {
+
+    <S extends Message> S save(S message);
+
+    <S extends Message> List<S> saveAll(Iterable<S> messages);
+
+    /**
+     * Saves new messages together with their hashtags and mentions, so a message is never
+     * committed without its tags.
+     */
+    <S extends Message> List<S> saveAllWithTags(List<S> messages);
+
+    List<MessageView> findAllViews();
+
+    Optional<MessageView> findViewById(int messageId);
+
+    List<MessageView> findViewsByIds(Collection<Integer> messageIds);
+
+    List<MessageView> findAllMessagesByAccountId(int accountId);
+
+    List<MessageView> findFirstPage(Pageable pageable);
+
+    List<MessageView> findPageAfter(long timePostedEpoch, int messageId, Pageable pageable);
+
+    List<MessageView> findFirstPageByAccountId(int accountId, Pageable pageable);
+
+    List<MessageView> findPageByAccountIdAfter(int accountId, long timePostedEpoch, int messageId, Pageable pageable);
+
+    List<MessageView> findFirstPageByAccountIds(Collection<Integer> accountIds, Pageable pageable);
+
+    List<MessageView> findPageByAccountIdsAfter(Collection<Integer> accountIds, long timePostedEpoch, int messageId, Pageable pageable);
+
+    List<MessageView> findByTimeRange(long since, long until, Pageable pageable);
+
+    List<MessageView> findByTimeRangeAfter(long since, long until, long timePostedEpoch, int messageId, Pageable pageable);
+
+    List<MessageView> findByAccountIdAndTimeRange(int accountId, long since, long until, Pageable pageable);
+
+    List<MessageView> findByAccountIdAndTimeRangeAfter(int accountId, long since, long until, long timePostedEpoch,
+                                                       int messageId, Pageable pageable);
+
+    Stream<MessageView> streamAll();
+
+    Stream<MessageView> streamByTimeRange(long since, long until);
+
+    Stream<MessageView> streamByAccountId(int accountId);
+
+    Stream<MessageView> streamByAccountIdAndTimeRange(int accountId, long since, long until);
+
+    Optional<Integer> deleteMessageById(int messageId);
+
+    Optional<Integer> updateMessageText(int messageId, String messageText);
+
+    List<AccountMessageCount> countMessagesByAccount();
+}
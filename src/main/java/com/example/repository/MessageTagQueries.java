@@ -0,0 +1,52 @@
+package com.example.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+
+/**
+ * The hashtag and mention operations of MessageRepository, implemented with JDBC on the
+ * message_tag table by MessageTagQueriesImpl.
+ */
+public interface MessageTagQueries {
+
+    /**
+     * Stores the hashtags and mentions of messages that have just been saved, in the current transaction.
+     *
+     * @param messages the saved messages, with their message IDs assigned.
+     */
+    void saveTags(List<? extends Message> messages);
+
+    /**
+     * Replaces the hashtags and mentions of a message after its text has changed, in the current transaction.
+     *
+     * @param messageId The ID of the changed message.
+     * @param messageText The new text of the message.
+     */
+    void replaceTags(int messageId, String messageText);
+
+    /**
+     * Retrieves the newest messages with a hashtag or mention, ordered by post time and then
+     * message ID (both descending).
+     *
+     * @param tag The hashtag or mention as it is stored, for example "#spring" or "@testuser1".
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    List<MessageView> findFirstPageByTag(String tag, Pageable pageable);
+
+    /**
+     * Retrieves the messages with a hashtag or mention that sort after the provided
+     * (timePostedEpoch, messageId) position.
+     *
+     * @param tag The hashtag or mention as it is stored.
+     * @param timePostedEpoch The post time of the last message on the previous page.
+     * @param messageId The message ID of the last message on the previous page.
+     * @param pageable the page size to read.
+     * @return A list of at most pageable.getPageSize() messages, newest first.
+     */
+    List<MessageView> findPageByTagAfter(String tag, long timePostedEpoch, int messageId, Pageable pageable);
+}
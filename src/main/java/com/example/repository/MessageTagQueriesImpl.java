@@ -0,0 +1,57 @@
+package com.example.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+
+/**
+ * JDBC implementation of the MessageTagQueries fragment of MessageRepository.
+ *
+ * The JdbcTemplate takes part in the JPA transaction, so tags are written in the same
+ * transaction as their message.
+ */
+public class MessageTagQueriesImpl implements MessageTagQueries {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public MessageTagQueriesImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void saveTags(List<? extends Message> messages) {
+        // Send the pending message inserts first, the tags reference them
+        entityManager.flush();
+        MessageTagStatements.insertTags(jdbcTemplate, messages);
+    }
+
+    @Override
+    @Transactional
+    public void replaceTags(int messageId, String messageText) {
+        MessageTagStatements.replaceTags(jdbcTemplate, messageId, messageText);
+    }
+
+    @Override
+    public List<MessageView> findFirstPageByTag(String tag, Pageable pageable) {
+        return MessageTagStatements.findFirstPage(jdbcTemplate, tag, pageable.getPageSize());
+    }
+
+    @Override
+    public List<MessageView> findPageByTagAfter(String tag, long timePostedEpoch, int messageId, Pageable pageable) {
+        return MessageTagStatements.findPageAfter(jdbcTemplate, tag, timePostedEpoch, messageId, pageable.getPageSize());
+    }
+}
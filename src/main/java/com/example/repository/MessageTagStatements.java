@@ -0,0 +1,78 @@
+package com.example.repository;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+import com.example.search.MessageTags;
+
+/**
+ * The statements on the message_tag table, shared by every store that writes messages with JDBC.
+ *
+ * Each row holds one hashtag or mention of a message along with the message's post time, so
+ * the messages of a tag are read newest first by seeking the (tag, timePostedEpoch, messageId)
+ * index. Rows are removed with their message by the foreign key's ON DELETE CASCADE.
+ */
+final class MessageTagStatements {
+
+    static final String INSERT = "INSERT INTO message_tag (tag, messageId, timePostedEpoch) VALUES (?, ?, ?)";
+    static final String DELETE_BY_MESSAGE_ID = "DELETE FROM message_tag WHERE messageId = ?";
+    static final String INSERT_FOR_MESSAGE_ID =
+        "INSERT INTO message_tag (tag, messageId, timePostedEpoch) SELECT ?, messageId, timePostedEpoch FROM message WHERE messageId = ?";
+
+    private static final String SELECT_VIEW = "SELECT m.messageId, m.postedBy, m.messageText, m.timePostedEpoch "
+        + "FROM message_tag t JOIN message m ON m.messageId = t.messageId WHERE t.tag = ?";
+    private static final String NEWEST_FIRST_LIMIT = " ORDER BY t.timePostedEpoch DESC, t.messageId DESC LIMIT ?";
+
+    static final String FIRST_PAGE = SELECT_VIEW + NEWEST_FIRST_LIMIT;
+    static final String PAGE_AFTER = SELECT_VIEW
+        + " AND t.timePostedEpoch <= ? AND (t.timePostedEpoch < ? OR t.messageId < ?)" + NEWEST_FIRST_LIMIT;
+
+    static final RowMapper<MessageView> VIEW_MAPPER = (row, rowNum) -> new MessageView(
+        row.getInt(1), row.getInt(2), row.getString(3), row.getObject(4, Long.class));
+
+    private MessageTagStatements() {
+    }
+
+    /**
+     * Inserts the tags of messages that have just been inserted, in one JDBC batch.
+     */
+    static void insertTags(JdbcTemplate jdbcTemplate, List<? extends Message> messages) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Message message : messages) {
+            for (String tag : MessageTags.extract(message.getMessageText())) {
+                rows.add(new Object[] {tag, message.getMessageId(), message.getTimePostedEpoch()});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, rows, new int[] {Types.VARCHAR, Types.INTEGER, Types.BIGINT});
+        }
+    }
+
+    /**
+     * Replaces the tags of a message after its text has changed.
+     */
+    static void replaceTags(JdbcTemplate jdbcTemplate, int messageId, String messageText) {
+        jdbcTemplate.update(DELETE_BY_MESSAGE_ID, messageId);
+        List<Object[]> rows = new ArrayList<>();
+        for (String tag : MessageTags.extract(messageText)) {
+            rows.add(new Object[] {tag, messageId});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FOR_MESSAGE_ID, rows, new int[] {Types.VARCHAR, Types.INTEGER});
+        }
+    }
+
+    static List<MessageView> findFirstPage(JdbcTemplate jdbcTemplate, String tag, int limit) {
+        return jdbcTemplate.query(FIRST_PAGE, VIEW_MAPPER, tag, limit);
+    }
+
+    static List<MessageView> findPageAfter(JdbcTemplate jdbcTemplate, String tag, long timePostedEpoch, int messageId, int limit) {
+        return jdbcTemplate.query(PAGE_AFTER, VIEW_MAPPER, tag, timePostedEpoch, timePostedEpoch, messageId, limit);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.example.entity.Account;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the account table over R2DBC, used by the reactive profile.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveAccountRepository {
+
+    private static final String SELECT_ACCOUNT = "SELECT accountId, username, password FROM account";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveAccountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Checks whether an account with the provided ID exists.
+     *
+     * @param accountId The ID of the account to check.
+     * @return A Mono with true if the account exists, false otherwise.
+     */
+    public Mono<Boolean> existsById(int accountId) {
+        return databaseClient.sql("SELECT 1 FROM account WHERE accountId = :accountId")
+            .bind("accountId", accountId)
+            .fetch()
+            .first()
+            .hasElement();
+    }
+
+    /**
+     * Checks whether an account with the provided username exists.
+     *
+     * @param username The username to check.
+     * @return A Mono with true if the username is taken, false otherwise.
+     */
+    public Mono<Boolean> existsByUsername(String username) {
+        return databaseClient.sql("SELECT 1 FROM account WHERE username = :username")
+            .bind("username", username)
+            .fetch()
+            .first()
+            .hasElement();
+    }
+
+    /**
+     * Retrieves the account matching the provided username and password.
+     *
+     * @param username The username of the account.
+     * @param password The password of the account.
+     * @return A Mono with the account, or an empty Mono if the credentials do not match.
+     */
+    public Mono<Account> findByUsernameAndPassword(String username, String password) {
+        return databaseClient.sql(SELECT_ACCOUNT + " WHERE username = :username AND password = :password")
+            .bind("username", username)
+            .bind("password", password)
+            .map(ReactiveAccountRepository::toAccount)
+            .one();
+    }
+
+    /**
+     * Inserts an account and returns it with its generated ID in the same round trip.
+     *
+     * The unique index on username rejects duplicates with a DataIntegrityViolationException.
+     *
+     * @param username The username of the new account.
+     * @param password The password of the new account.
+     * @return A Mono with the inserted account.
+     */
+    public Mono<Account> insert(String username, String password) {
+        return databaseClient.sql("SELECT accountId, username, password FROM FINAL TABLE " +
+                                  "(INSERT INTO account (username, password) VALUES (:username, :password))")
+            .bind("username", username)
+            .bind("password", password)
+            .map(ReactiveAccountRepository::toAccount)
+            .one();
+    }
+
+    private static Account toAccount(Row row) {
+        return new Account(row.get("accountId", Integer.class), row.get("username", String.class),
+                           row.get("password", String.class));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.example.dto.MessageView;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the message table over R2DBC, used by the reactive profile.
+ *
+ * The queries match the ones in MessageRepository and read the same table and indexes.
+ * Rows are mapped straight to MessageView objects and emitted as they arrive, so a Flux
+ * result is never collected into a list.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveMessageRepository {
+
+    private static final String SELECT_VIEW = "SELECT messageId, postedBy, messageText, timePostedEpoch FROM message";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveMessageRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Retrieves all messages in message ID order.
+     *
+     * @return A Flux of all messages.
+     */
+    public Flux<MessageView> findAll() {
+        return databaseClient.sql(SELECT_VIEW + " ORDER BY messageId")
+            .map(ReactiveMessageRepository::toView)
+            .all();
+    }
+
+    /**
+     * Retrieves a message by its ID.
+     *
+     * @param messageId The ID of the message to retrieve.
+     * @return A Mono with the message, or an empty Mono if it does not exist.
+     */
+    public Mono<MessageView> findById(int messageId) {
+        return databaseClient.sql(SELECT_VIEW + " WHERE messageId = :messageId")
+            .bind("messageId", messageId)
+            .map(ReactiveMessageRepository::toView)
+            .one();
+    }
+
+    /**
+     * Retrieves all messages posted by a specific account, newest first.
+     *
+     * @param accountId The ID of the account whose messages are to be retrieved.
+     * @return A Flux of the account's messages, newest first.
+     */
+    public Flux<MessageView> findAllByAccountId(int accountId) {
+        return databaseClient.sql(SELECT_VIEW + " WHERE postedBy = :accountId " +
+                                  "ORDER BY postedBy, timePostedEpoch DESC, messageId DESC")
+            .bind("accountId", accountId)
+            .map(ReactiveMessageRepository::toView)
+            .all();
+    }
+
+    /**
+     * Inserts a message and returns it with its generated ID in the same round trip.
+     *
+     * @param postedBy The ID of the account posting the message.
+     * @param messageText The text of the message.
+     * @param timePostedEpoch The time the message was posted.
+     * @return A Mono with the inserted message.
+     */
+    public Mono<MessageView> insert(int postedBy, String messageText, long timePostedEpoch) {
+        return databaseClient.sql(
+                "SELECT messageId, postedBy, messageText, timePostedEpoch FROM FINAL TABLE " +
+                "(INSERT INTO message (postedBy, messageText, timePostedEpoch) VALUES (:postedBy, :messageText, :timePostedEpoch))")
+            .bind("postedBy", postedBy)
+            .bind("messageText", messageText)
+            .bind("timePostedEpoch", timePostedEpoch)
+            .map(ReactiveMessageRepository::toView)
+            .one();
+    }
+
+    /**
+     * Deletes a message by its ID.
+     *
+     * @param messageId The ID of the message to delete.
+     * @return A Mono with the number of deleted rows (0 or 1).
+     */
+    public Mono<Integer> deleteById(int messageId) {
+        return databaseClient.sql("DELETE FROM message WHERE messageId = :messageId")
+            .bind("messageId", messageId)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    /**
+     * Updates the text of a message.
+     *
+     * @param messageId The ID of the message to update.
+     * @param messageText The new text of the message.
+     * @return A Mono with the number of updated rows (0 or 1).
+     */
+    public Mono<Integer> updateText(int messageId, String messageText) {
+        return databaseClient.sql("UPDATE message SET messageText = :messageText WHERE messageId = :messageId")
+            .bind("messageId", messageId)
+            .bind("messageText", messageText)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    private static MessageView toView(Row row) {
+        return new MessageView(row.get("messageId", Integer.class), row.get("postedBy", Integer.class),
+                               row.get("messageText", String.class), row.get("timePostedEpoch", Long.class));
+    }
+}
@@ -0,0 +1,580 @@
+package com.example.repository;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.dto.AccountMessageCount;
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+
+/**
+ * Stores messages across several databases (shards), partitioned by a hash of postedBy.
+ *
+ * Every operation on one account's messages, and every operation on a message by ID, goes to
+ * a single shard. Queries over all messages are sent to every shard in parallel, and the
+ * sorted results are merged: the pages by post time, findAllViews and the exports by message ID.
+ *
+ * A message ID holds the shard the message is stored in, in its low SHARD_BITS bits, above a
+ * number taken from that shard's own sequence. IDs are therefore globally unique without any
+ * coordination between shards, and a message is found from its ID alone.
+ *
+ * The hashtags and mentions of a message are stored in the same shard as the message. A tag
+ * can occur in every shard, so its pages are read from every shard and merged by post time.
+ * A message and its tags are written in the same shard transaction.
+ *
+ * There are no transactions across shards. A batch of messages from accounts on different
+ * shards is written one shard transaction at a time, so if a shard fails, the messages already
+ * written to the shards before it stay committed.
+ */
+public class ShardedMessageStore implements MessageStore {
+
+    /** Number of low bits of a message ID that hold its shard */
+    public static final int SHARD_BITS = 4;
+    /** Largest supported number of shards */
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private static final String SELECT_VIEW = "SELECT messageId, postedBy, messageText, timePostedEpoch FROM message";
+    private static final String TIME_ORDER_BY = " ORDER BY timePostedEpoch, messageId";
+    private static final String NEWEST_FIRST_ORDER_BY = " ORDER BY timePostedEpoch DESC, messageId DESC";
+    private static final String ID_ORDER_BY = " ORDER BY messageId";
+    private static final String INSERT =
+        "INSERT INTO message (messageId, postedBy, messageText, timePostedEpoch) VALUES (?, ?, ?, ?)";
+
+    private static final RowMapper<MessageView> VIEW_MAPPER = (row, rowNum) -> new MessageView(
+        row.getInt(1), row.getInt(2), row.getString(3), row.getObject(4, Long.class));
+
+    private static final Comparator<MessageView> TIME_ORDER = Comparator
+        .comparingLong(MessageView::getTimePostedEpoch)
+        .thenComparing(MessageView::getMessageId);
+    private static final Comparator<MessageView> NEWEST_FIRST = TIME_ORDER.reversed();
+    private static final Comparator<MessageView> ID_ORDER = Comparator.comparing(MessageView::getMessageId);
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+
+    /**
+     * @param shardDataSources one data source per shard, each with the schema from shard-schema.sql.
+     *        The position of a data source in the list is its shard number.
+     */
+    public ShardedMessageStore(List<DataSource> shardDataSources) {
+        if (shardDataSources.isEmpty() || shardDataSources.size() > MAX_SHARDS) {
+            throw new IllegalStateException("The number of shards must be between 1 and " + MAX_SHARDS
+                + ", but was " + shardDataSources.size());
+        }
+        for (DataSource dataSource : shardDataSources) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setFetchSize(Integer.parseInt(MessageRepository.EXPORT_FETCH_SIZE));
+            shards.add(jdbcTemplate);
+            transactions.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(shards.size(), task -> {
+            Thread thread = new Thread(task, "shard-query-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void close() {
+        scatterExecutor.shutdown();
+    }
+
+    /**
+     * @param postedBy an account ID
+     * @return the shard that stores the account's messages
+     */
+    int shardOfAccount(int postedBy) {
+        int hash = postedBy * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+
+    /**
+     * @param messageId a message ID
+     * @return the shard that stores the message, or -1 if the ID cannot belong to any shard
+     */
+    int shardOfMessage(int messageId) {
+        int shard = messageId & (MAX_SHARDS - 1);
+        return messageId > 0 && shard < shards.size() ? shard : -1;
+    }
+
+    @Override
+    public <S extends Message> S save(S message) {
+        int shard = shardOfAccount(message.getPostedBy());
+        insert(shard, List.of(message), false);
+        return message;
+    }
+
+    @Override
+    public <S extends Message> List<S> saveAll(Iterable<S> messages) {
+        return saveAll(messages, false);
+    }
+
+    /**
+     * Saves each shard's messages and their tags in one transaction of that shard. The batch
+     * as a whole is not atomic when it spans shards; see the class documentation.
+     */
+    @Override
+    public <S extends Message> List<S> saveAllWithTags(List<S> messages) {
+        return saveAll(messages, true);
+    }
+
+    private <S extends Message> List<S> saveAll(Iterable<S> messages, boolean withTags) {
+        List<List<Message>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        List<S> saved = new ArrayList<>();
+        for (S message : messages) {
+            byShard.get(shardOfAccount(message.getPostedBy())).add(message);
+            saved.add(message);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (!byShard.get(shard).isEmpty()) {
+                insert(shard, byShard.get(shard), withTags);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Assigns the messages their IDs and inserts them into one shard in a single transaction,
+     * together with their hashtags and mentions if withTags is set.
+     */
+    private void insert(int shard, List<? extends Message> messages, boolean withTags) {
+        JdbcTemplate jdbcTemplate = shards.get(shard);
+        transactions.get(shard).executeWithoutResult(status -> {
+            List<Long> numbers = jdbcTemplate.queryForList(
+                "SELECT NEXT VALUE FOR message_seq FROM SYSTEM_RANGE(1, ?)", Long.class, messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                messages.get(i).setMessageId(messageId(shard, numbers.get(i)));
+            }
+            jdbcTemplate.batchUpdate(INSERT, messages, messages.size(), (statement, message) -> {
+                statement.setInt(1, message.getMessageId());
+                statement.setInt(2, message.getPostedBy());
+                statement.setString(3, message.getMessageText());
+                statement.setObject(4, message.getTimePostedEpoch(), Types.BIGINT);
+            });
+            if (withTags) {
+                MessageTagStatements.insertTags(jdbcTemplate, messages);
+            }
+        });
+    }
+
+    private static int messageId(int shard, long number) {
+        if (number >= 1L << (Integer.SIZE - 1 - SHARD_BITS)) {
+            throw new IllegalStateException("Shard " + shard + " has run out of message IDs");
+        }
+        return (int) (number << SHARD_BITS) | shard;
+    }
+
+    @Override
+    public List<MessageView> findAllViews() {
+        return merge(scatter(shard -> shard.query(SELECT_VIEW + ID_ORDER_BY, VIEW_MAPPER)), ID_ORDER, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Optional<MessageView> findViewById(int messageId) {
+        int shard = shardOfMessage(messageId);
+        if (shard < 0) {
+            return Optional.empty();
+        }
+        return shards.get(shard).query(SELECT_VIEW + " WHERE messageId = ?", VIEW_MAPPER, messageId).stream().findFirst();
+    }
+
+    @Override
+    public List<MessageView> findViewsByIds(Collection<Integer> messageIds) {
+        List<List<Integer>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (int messageId : messageIds) {
+            int shard = shardOfMessage(messageId);
+            if (shard >= 0) {
+                byShard.get(shard).add(messageId);
+            }
+        }
+        // Only the shards holding one of the messages are queried
+        List<CompletableFuture<List<MessageView>>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            List<Integer> ids = byShard.get(shard);
+            if (!ids.isEmpty()) {
+                JdbcTemplate jdbcTemplate = shards.get(shard);
+                String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+                futures.add(CompletableFuture.supplyAsync(() -> jdbcTemplate.query(
+                    SELECT_VIEW + " WHERE messageId IN (" + placeholders + ")", VIEW_MAPPER, ids.toArray()), scatterExecutor));
+            }
+        }
+        List<MessageView> views = new ArrayList<>(messageIds.size());
+        for (CompletableFuture<List<MessageView>> future : futures) {
+            views.addAll(future.join());
+        }
+        return views;
+    }
+
+    @Override
+    public List<MessageView> findAllMessagesByAccountId(int accountId) {
+        return accountShard(accountId).query(SELECT_VIEW + " WHERE postedBy = ?" + NEWEST_FIRST_ORDER_BY, VIEW_MAPPER, accountId);
+    }
+
+    @Override
+    public List<MessageView> findFirstPage(Pageable pageable) {
+        int limit = pageable.getPageSize();
+        return merge(scatter(shard -> shard.query(SELECT_VIEW + NEWEST_FIRST_ORDER_BY + " LIMIT ?", VIEW_MAPPER, limit)),
+            NEWEST_FIRST, limit);
+    }
+
+    @Override
+    public List<MessageView> findPageAfter(long timePostedEpoch, int messageId, Pageable pageable) {
+        int limit = pageable.getPageSize();
+        return merge(scatter(shard -> shard.query(SELECT_VIEW
+                + " WHERE timePostedEpoch <= ? AND (timePostedEpoch < ? OR messageId < ?)" + NEWEST_FIRST_ORDER_BY + " LIMIT ?",
+                VIEW_MAPPER, timePostedEpoch, timePostedEpoch, messageId, limit)),
+            NEWEST_FIRST, limit);
+    }
+
+    @Override
+    public List<MessageView> findFirstPageByAccountId(int accountId, Pageable pageable) {
+        return accountShard(accountId).query(SELECT_VIEW + " WHERE postedBy = ?" + NEWEST_FIRST_ORDER_BY + " LIMIT ?",
+            VIEW_MAPPER, accountId, pageable.getPageSize());
+    }
+
+    @Override
+    public List<MessageView> findPageByAccountIdAfter(int accountId, long timePostedEpoch, int messageId, Pageable pageable) {
+        return accountShard(accountId).query(SELECT_VIEW + " WHERE postedBy = ? "
+                + "AND timePostedEpoch <= ? AND (timePostedEpoch < ? OR messageId < ?)" + NEWEST_FIRST_ORDER_BY + " LIMIT ?",
+            VIEW_MAPPER, accountId, timePostedEpoch, timePostedEpoch, messageId, pageable.getPageSize());
+    }
+
+    @Override
+    public List<MessageView> findFirstPageByAccountIds(Collection<Integer> accountIds, Pageable pageable) {
+        int limit = pageable.getPageSize();
+        return merge(scatterByAccount(accountIds, (shard, placeholders, ids) -> {
+            ids.add(limit);
+            return shard.query(SELECT_VIEW + " WHERE postedBy IN (" + placeholders + ")" + NEWEST_FIRST_ORDER_BY + " LIMIT ?",
+                VIEW_MAPPER, ids.toArray());
+        }), NEWEST_FIRST, limit);
+    }
+
+    @Override
+    public List<MessageView> findPageByAccountIdsAfter(Collection<Integer> accountIds, long timePostedEpoch, int messageId,
+                                                       Pageable pageable) {
+        int limit = pageable.getPageSize();
+        return merge(scatterByAccount(accountIds, (shard, placeholders, ids) -> {
+            ids.addAll(List.of(timePostedEpoch, timePostedEpoch, messageId, limit));
+            return shard.query(SELECT_VIEW + " WHERE postedBy IN (" + placeholders + ") "
+                    + "AND timePostedEpoch <= ? AND (timePostedEpoch < ? OR messageId < ?)" + NEWEST_FIRST_ORDER_BY + " LIMIT ?",
+                VIEW_MAPPER, ids.toArray());
+        }), NEWEST_FIRST, limit);
+    }
+
+    @Override
+    public List<MessageView> findByTimeRange(long since, long until, Pageable pageable) {
+        int limit = limit(pageable);
+        return merge(scatter(shard -> shard.query(SELECT_VIEW
+                + " WHERE timePostedEpoch >= ? AND timePostedEpoch < ?" + TIME_ORDER_BY + " LIMIT ?",
+                VIEW_MAPPER, since, until, limit)),
+            TIME_ORDER, limit);
+    }
+
+    @Override
+    public List<MessageView> findByTimeRangeAfter(long since, long until, long timePostedEpoch, int messageId, Pageable pageable) {
+        int limit = limit(pageable);
+        return merge(scatter(shard -> shard.query(SELECT_VIEW
+                + " WHERE timePostedEpoch >= ? AND timePostedEpoch < ? AND timePostedEpoch >= ? AND (timePostedEpoch > ? OR messageId > ?)"
+                + TIME_ORDER_BY + " LIMIT ?",
+                VIEW_MAPPER, since, until, timePostedEpoch, timePostedEpoch, messageId, limit)),
+            TIME_ORDER, limit);
+    }
+
+    @Override
+    public List<MessageView> findByAccountIdAndTimeRange(int accountId, long since, long until, Pageable pageable) {
+        return accountShard(accountId).query(SELECT_VIEW
+                + " WHERE postedBy = ? AND timePostedEpoch >= ? AND timePostedEpoch < ?" + TIME_ORDER_BY + " LIMIT ?",
+            VIEW_MAPPER, accountId, since, until, limit(pageable));
+    }
+
+    @Override
+    public List<MessageView> findByAccountIdAndTimeRangeAfter(int accountId, long since, long until, long timePostedEpoch,
+                                                              int messageId, Pageable pageable) {
+        return accountShard(accountId).query(SELECT_VIEW + " WHERE postedBy = ? AND timePostedEpoch >= ? AND timePostedEpoch < ? "
+                + "AND timePostedEpoch >= ? AND (timePostedEpoch > ? OR messageId > ?)" + TIME_ORDER_BY + " LIMIT ?",
+            VIEW_MAPPER, accountId, since, until, timePostedEpoch, timePostedEpoch, messageId, limit(pageable));
+    }
+
+    private static int limit(Pageable pageable) {
+        return pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Optional<Integer> deleteMessageById(int messageId) {
+        return changeById(messageId, "SELECT postedBy FROM OLD TABLE (DELETE FROM message WHERE messageId = ?)", messageId);
+    }
+
+    @Override
+    public Optional<Integer> updateMessageText(int messageId, String messageText) {
+        return changeById(messageId, "SELECT postedBy FROM FINAL TABLE (UPDATE message SET messageText = ? WHERE messageId = ?)",
+            messageText, messageId);
+    }
+
+    /**
+     * Runs a data change delta query on the shard of a message.
+     *
+     * @return the postedBy ID of the changed message, or an empty Optional if no message was changed
+     */
+    private Optional<Integer> changeById(int messageId, String sql, Object... parameters) {
+        int shard = shardOfMessage(messageId);
+        if (shard < 0) {
+            return Optional.empty();
+        }
+        return shards.get(shard).queryForList(sql, Integer.class, parameters).stream().findFirst();
+    }
+
+    @Override
+    public void saveTags(List<? extends Message> messages) {
+        List<List<Message>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Message message : messages) {
+            byShard.get(shardOfMessage(message.getMessageId())).add(message);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            List<Message> shardMessages = byShard.get(shard);
+            if (!shardMessages.isEmpty()) {
+                JdbcTemplate jdbcTemplate = shards.get(shard);
+                transactions.get(shard).executeWithoutResult(status -> MessageTagStatements.insertTags(jdbcTemplate, shardMessages));
+            }
+        }
+    }
+
+    @Override
+    public void replaceTags(int messageId, String messageText) {
+        int shard = shardOfMessage(messageId);
+        if (shard >= 0) {
+            JdbcTemplate jdbcTemplate = shards.get(shard);
+            transactions.get(shard).executeWithoutResult(status -> MessageTagStatements.replaceTags(jdbcTemplate, messageId, messageText));
+        }
+    }
+
+    @Override
+    public List<MessageView> findFirstPageByTag(String tag, Pageable pageable) {
+        int limit = pageable.getPageSize();
+        return merge(scatter(shard -> MessageTagStatements.findFirstPage(shard, tag, limit)), NEWEST_FIRST, limit);
+    }
+
+    @Override
+    public List<MessageView> findPageByTagAfter(String tag, long timePostedEpoch, int messageId, Pageable pageable) {
+        int limit = pageable.getPageSize();
+        return merge(scatter(shard -> MessageTagStatements.findPageAfter(shard, tag, timePostedEpoch, messageId, limit)),
+            NEWEST_FIRST, limit);
+    }
+
+    @Override
+    public Stream<MessageView> streamAll() {
+        return mergeStreams(shard -> shard.queryForStream(SELECT_VIEW + ID_ORDER_BY, VIEW_MAPPER));
+    }
+
+    @Override
+    public Stream<MessageView> streamByTimeRange(long since, long until) {
+        return mergeStreams(shard -> shard.queryForStream(
+            SELECT_VIEW + " WHERE timePostedEpoch >= ? AND timePostedEpoch < ?" + ID_ORDER_BY, VIEW_MAPPER, since, until));
+    }
+
+    @Override
+    public Stream<MessageView> streamByAccountId(int accountId) {
+        return accountShard(accountId).queryForStream(SELECT_VIEW + " WHERE postedBy = ?" + ID_ORDER_BY, VIEW_MAPPER, accountId);
+    }
+
+    @Override
+    public Stream<MessageView> streamByAccountIdAndTimeRange(int accountId, long since, long until) {
+        return accountShard(accountId).queryForStream(
+            SELECT_VIEW + " WHERE postedBy = ? AND timePostedEpoch >= ? AND timePostedEpoch < ?" + ID_ORDER_BY,
+            VIEW_MAPPER, accountId, since, until);
+    }
+
+    @Override
+    public List<AccountMessageCount> countMessagesByAccount() {
+        // Each account's messages live on one shard, so the shards' counts never overlap
+        List<AccountMessageCount> counts = new ArrayList<>();
+        scatter(shard -> shard.query("SELECT postedBy, COUNT(*) FROM message GROUP BY postedBy",
+            (row, rowNum) -> new AccountMessageCount(row.getObject(1, Integer.class), row.getLong(2))))
+            .forEach(counts::addAll);
+        return counts;
+    }
+
+    private JdbcTemplate accountShard(int accountId) {
+        return shards.get(shardOfAccount(accountId));
+    }
+
+    /**
+     * Runs a query on every shard in parallel.
+     *
+     * @return the results of each shard
+     */
+    private <T> List<List<T>> scatter(Function<JdbcTemplate, List<T>> query) {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(shards.size());
+        for (JdbcTemplate shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), scatterExecutor));
+        }
+        List<List<T>> results = new ArrayList<>(shards.size());
+        for (CompletableFuture<List<T>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * A query on the accounts of one shard.
+     */
+    @FunctionalInterface
+    private interface AccountsQuery {
+        /**
+         * @param shard the shard to query
+         * @param placeholders one '?' per account, separated by commas
+         * @param parameters the account IDs, to which the query appends its other parameters
+         */
+        List<MessageView> query(JdbcTemplate shard, String placeholders, List<Object> parameters);
+    }
+
+    /**
+     * Runs a query in parallel on only the shards that store one of the accounts, each with the
+     * accounts it stores.
+     *
+     * @return the results of each queried shard
+     */
+    private List<List<MessageView>> scatterByAccount(Collection<Integer> accountIds, AccountsQuery query) {
+        List<List<Object>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (int accountId : accountIds) {
+            byShard.get(shardOfAccount(accountId)).add(accountId);
+        }
+        List<CompletableFuture<List<MessageView>>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            List<Object> parameters = byShard.get(shard);
+            if (!parameters.isEmpty()) {
+                JdbcTemplate jdbcTemplate = shards.get(shard);
+                String placeholders = String.join(", ", Collections.nCopies(parameters.size(), "?"));
+                futures.add(CompletableFuture.supplyAsync(() -> query.query(jdbcTemplate, placeholders, parameters), scatterExecutor));
+            }
+        }
+        List<List<MessageView>> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<MessageView>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Merges lists that are each sorted by the provided order.
+     *
+     * @return the first limit messages of the merged lists
+     */
+    private static List<MessageView> merge(List<List<MessageView>> sorted, Comparator<MessageView> order, int limit) {
+        List<Iterator<MessageView>> iterators = new ArrayList<>(sorted.size());
+        int total = 0;
+        for (List<MessageView> messages : sorted) {
+            iterators.add(messages.iterator());
+            total += messages.size();
+        }
+        Iterator<MessageView> merged = new MergingIterator(iterators, order);
+        List<MessageView> result = new ArrayList<>(Math.min(total, limit));
+        while (merged.hasNext() && result.size() < limit) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+
+    /**
+     * Opens a stream sorted by message ID on every shard and merges them into one stream.
+     * Closing the returned stream closes the stream of every shard.
+     */
+    private Stream<MessageView> mergeStreams(Function<JdbcTemplate, Stream<MessageView>> query) {
+        List<Stream<MessageView>> streams = new ArrayList<>(shards.size());
+        try {
+            for (JdbcTemplate shard : shards) {
+                streams.add(query.apply(shard));
+            }
+        } catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        List<Iterator<MessageView>> iterators = new ArrayList<>(streams.size());
+        streams.forEach(stream -> iterators.add(stream.iterator()));
+        Spliterator<MessageView> merged = Spliterators.spliteratorUnknownSize(
+            new MergingIterator(iterators, ID_ORDER), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(merged, false).onClose(() -> streams.forEach(Stream::close));
+    }
+
+    /**
+     * K-way merge of iterators that are each sorted by the same order.
+     */
+    private static class MergingIterator implements Iterator<MessageView> {
+
+        /** Holds the next message of every iterator that has one, with the iterator it came from */
+        private final PriorityQueue<Head> heads;
+
+        private static class Head {
+            private final MessageView message;
+            private final Iterator<MessageView> rest;
+
+            Head(MessageView message, Iterator<MessageView> rest) {
+                this.message = message;
+                this.rest = rest;
+            }
+        }
+
+        MergingIterator(List<Iterator<MessageView>> iterators, Comparator<MessageView> order) {
+            this.heads = new PriorityQueue<>(Math.max(1, iterators.size()), Comparator.comparing((Head head) -> head.message, order));
+            for (Iterator<MessageView> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public MessageView next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return head.message;
+        }
+    }
+}
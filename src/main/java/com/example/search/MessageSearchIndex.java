@@ -0,0 +1,398 @@
+package com.example.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index of message text, used to search messages.
+ *
+ * Message text is split into lower-case terms made of letters and digits. Each term maps to a
+ * posting list of the IDs of the messages containing it, sorted by message ID, along with the
+ * number of times the term occurs in each message.
+ *
+ * A query matches the messages that contain all of its terms. The posting list of the rarest
+ * term is walked and the other terms are looked up by binary search, starting where the
+ * previous lookup ended. The cost therefore depends on how rare the query is, not on the number
+ * of indexed messages. Matches are ranked with BM25 and only the requested page is kept, in a
+ * bounded heap.
+ *
+ * Queries share a read lock. Changes take the write lock only for the in-memory update.
+ */
+@Component
+@Profile("!reactive")
+public class MessageSearchIndex {
+
+    /** BM25 term frequency saturation */
+    private static final double K1 = 1.2;
+    /** BM25 message length normalization */
+    private static final double B = 0.75;
+
+    /** Worst hit first, so the heap can drop it when a better one is found */
+    private static final Comparator<Hit> WORST_FIRST = Comparator
+        .comparingDouble((Hit hit) -> hit.score)
+        .thenComparingInt(hit -> hit.messageId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    /** Messages removed while a bulk load is running, which the load must not put back */
+    private final Set<Integer> removedDuringLoad = new HashSet<>();
+    private boolean loading;
+    private long totalLength;
+
+    /**
+     * Splits text into its search terms: runs of letters and digits, lower-cased.
+     *
+     * @param text the text to split
+     * @return the terms in the order they occur, including repeats
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(codePoint);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    /**
+     * Indexes a message, replacing what was indexed for it before.
+     *
+     * @param messageId the ID of the message
+     * @param postedBy the account that posted the message
+     * @param messageText the current text of the message
+     */
+    public void put(int messageId, int postedBy, String messageText) {
+        put(messageId, postedBy, messageText, true);
+    }
+
+    /**
+     * Starts a bulk load. Until endLoad, the messages removed from the index are remembered,
+     * so putIfAbsent does not index them again from a snapshot read before they were deleted.
+     * Must be called before the snapshot is read.
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ends a bulk load started with beginLoad and forgets the messages removed during it.
+     */
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            removedDuringLoad.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a message unless it is already indexed, or was removed since the current bulk
+     * load began. Used when the index is rebuilt, so a message indexed by a concurrent create
+     * or update keeps its newer text and a concurrently deleted message stays out.
+     *
+     * @param messageId the ID of the message
+     * @param postedBy the account that posted the message
+     * @param messageText the text of the message
+     */
+    public void putIfAbsent(int messageId, int postedBy, String messageText) {
+        put(messageId, postedBy, messageText, false);
+    }
+
+    private void put(int messageId, int postedBy, String messageText, boolean replace) {
+        List<String> tokens = tokenize(messageText);
+        // Count each term once per message, the postings hold how often it occurs
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            if (!replace && removedDuringLoad.contains(messageId)) {
+                return;
+            }
+            if (documents.containsKey(messageId)) {
+                if (!replace) {
+                    return;
+                }
+                removeDocument(messageId);
+            }
+            Postings[] postings = new Postings[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                Postings termPostings = terms.computeIfAbsent(frequency.getKey(), Postings::new);
+                termPostings.add(messageId, frequency.getValue());
+                postings[i++] = termPostings;
+            }
+            documents.put(messageId, new Document(postedBy, tokens.size(), postings));
+            totalLength += tokens.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a message from the index. Does nothing if the message is not indexed.
+     *
+     * @param messageId the ID of the message
+     */
+    public void remove(int messageId) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                removedDuringLoad.add(messageId);
+            }
+            removeDocument(messageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeDocument(int messageId) {
+        Document document = documents.remove(messageId);
+        if (document == null) {
+            return;
+        }
+        for (Postings postings : document.postings) {
+            postings.remove(messageId);
+            if (postings.size == 0) {
+                terms.remove(postings.term);
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    /**
+     * @return the number of indexed messages
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the messages containing every query term, best match first.
+     *
+     * Matches are ranked by their BM25 score; messages with the same score are ranked newest
+     * (highest message ID) first.
+     *
+     * @param queryTerms the terms to search for, as produced by tokenize
+     * @param postedBy the optional account ID to filter by, or null for all accounts
+     * @param offset the number of ranked matches to skip
+     * @param limit the maximum number of matches to return
+     * @return the total number of matches and the message IDs on the requested page
+     */
+    public Hits search(List<String> queryTerms, Integer postedBy, int offset, int limit) {
+        Set<String> distinctTerms = new LinkedHashSet<>(queryTerms);
+        lock.readLock().lock();
+        try {
+            Postings[] postings = new Postings[distinctTerms.size()];
+            int i = 0;
+            for (String term : distinctTerms) {
+                postings[i] = terms.get(term);
+                if (postings[i++] == null) {
+                    // A term no message contains, nothing can match all of them
+                    return Hits.NONE;
+                }
+            }
+            if (postings.length == 0) {
+                return Hits.NONE;
+            }
+            // Walk the rarest term, look up the others
+            Arrays.sort(postings, Comparator.comparingInt(termPostings -> termPostings.size));
+
+            int messageCount = documents.size();
+            double averageLength = (double) totalLength / messageCount;
+            double[] idf = new double[postings.length];
+            for (int t = 0; t < postings.length; t++) {
+                int documentFrequency = postings[t].size;
+                idf[t] = Math.log(1 + (messageCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            }
+
+            int keep = offset + limit;
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(keep, postings[0].size) + 1, WORST_FIRST);
+            int[] from = new int[postings.length];
+            int[] frequencies = new int[postings.length];
+            int total = 0;
+            Postings rarest = postings[0];
+            candidates:
+            for (int p = 0; p < rarest.size; p++) {
+                int messageId = rarest.ids[p];
+                frequencies[0] = rarest.frequencies[p];
+                for (int t = 1; t < postings.length; t++) {
+                    int found = Arrays.binarySearch(postings[t].ids, from[t], postings[t].size, messageId);
+                    if (found < 0) {
+                        from[t] = -found - 1;
+                        continue candidates;
+                    }
+                    from[t] = found + 1;
+                    frequencies[t] = postings[t].frequencies[found];
+                }
+                Document document = documents.get(messageId);
+                if (postedBy != null && document.postedBy != postedBy) {
+                    continue;
+                }
+                total++;
+                double lengthNorm = K1 * (1 - B + B * document.length / averageLength);
+                double score = 0;
+                for (int t = 0; t < postings.length; t++) {
+                    score += idf[t] * frequencies[t] * (K1 + 1) / (frequencies[t] + lengthNorm);
+                }
+                if (best.size() < keep) {
+                    best.add(new Hit(messageId, score));
+                } else if (WORST_FIRST.compare(best.peek(), new Hit(messageId, score)) < 0) {
+                    best.poll();
+                    best.add(new Hit(messageId, score));
+                }
+            }
+
+            // The heap holds the best offset + limit matches, worst first
+            int pageSize = Math.max(0, best.size() - offset);
+            int[] messageIds = new int[pageSize];
+            for (int rank = best.size() - 1; rank >= 0; rank--) {
+                Hit hit = best.poll();
+                if (rank >= offset) {
+                    messageIds[rank - offset] = hit.messageId;
+                }
+            }
+            return new Hits(total, messageIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The result of a search: the total number of matches and the ranked message IDs of one page.
+     */
+    public static final class Hits {
+
+        static final Hits NONE = new Hits(0, new int[0]);
+
+        private final int total;
+        private final int[] messageIds;
+
+        Hits(int total, int[] messageIds) {
+            this.total = total;
+            this.messageIds = messageIds;
+        }
+
+        /**
+         * @return the number of messages matching the query, on all pages
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * @return the message IDs on the requested page, best match first
+         */
+        public int[] getMessageIds() {
+            return messageIds;
+        }
+    }
+
+    private static final class Hit {
+        final int messageId;
+        final double score;
+
+        Hit(int messageId, double score) {
+            this.messageId = messageId;
+            this.score = score;
+        }
+    }
+
+    /**
+     * What is indexed for one message: its author, its number of terms, and the posting lists
+     * it appears in, so it can be removed without tokenizing its old text again.
+     */
+    private static final class Document {
+        final int postedBy;
+        final int length;
+        final Postings[] postings;
+
+        Document(int postedBy, int length, Postings[] postings) {
+            this.postedBy = postedBy;
+            this.length = length;
+            this.postings = postings;
+        }
+    }
+
+    /**
+     * The messages containing one term, sorted by message ID, with the term's frequency in each.
+     * Only changed under the write lock.
+     */
+    private static final class Postings {
+        final String term;
+        int[] ids = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int messageId, int frequency) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            // New messages have the highest IDs, so this is almost always an append
+            int position = size;
+            if (size > 0 && ids[size - 1] > messageId) {
+                position = -Arrays.binarySearch(ids, 0, size, messageId) - 1;
+                System.arraycopy(ids, position, ids, position + 1, size - position);
+                System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            }
+            ids[position] = messageId;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        void remove(int messageId) {
+            int position = Arrays.binarySearch(ids, 0, size, messageId);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Extracts the hashtags and mentions of a message text.
+ *
+ * A hashtag is a '#' followed by letters, digits and underscores, and is matched
+ * case-insensitively, so it is stored lower-cased ("#spring"). A mention is an '@' followed by
+ * a username made of the same characters, which may also be joined by single dots and hyphens
+ * ("@john.doe", "@user-1"), and is stored as written, like the username it refers to. A dot or
+ * hyphen that ends the mention is punctuation, so "Thanks @john_doe." mentions "@john_doe".
+ * Both must start a word, so an e-mail address is not a mention.
+ *
+ * A username that no mention can name in full, such as one with a space, is never indexed.
+ *
+ * The extracted tags are stored in the message_tag table with their message's post time,
+ * where a tag's messages are read newest first from an index.
+ */
+public final class MessageTags {
+
+    public static final char HASHTAG = '#';
+    public static final char MENTION = '@';
+
+    private MessageTags() {
+    }
+
+    /**
+     * @param text a message text
+     * @return the distinct hashtags and mentions in the text, in the order they first occur
+     */
+    public static Set<String> extract(String text) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (text == null) {
+            return tags;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            char marker = text.charAt(i);
+            boolean startsWord = i == 0 || !isTagCharacter(text.codePointBefore(i));
+            if ((marker == HASHTAG || marker == MENTION) && startsWord) {
+                int end = marker == HASHTAG ? endOfHashtag(text, i + 1) : endOfMention(text, i + 1);
+                if (end > i + 1) {
+                    String tag = text.substring(i, end);
+                    tags.add(marker == HASHTAG ? tag.toLowerCase(Locale.ROOT) : tag);
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * @param tag a hashtag, with or without its leading '#'
+     * @return the hashtag as it is stored
+     */
+    public static String hashtag(String tag) {
+        String name = tag.startsWith(String.valueOf(HASHTAG)) ? tag.substring(1) : tag;
+        return HASHTAG + name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param username the username of an account
+     * @return the mention of the account as it is stored
+     */
+    public static String mention(String username) {
+        return MENTION + username;
+    }
+
+    /**
+     * @param username a username
+     * @return true if the whole username is read as a mention when it follows an '@'
+     */
+    public static boolean isMentionable(String username) {
+        return !username.isEmpty() && endOfMention(username, 0) == username.length();
+    }
+
+    private static int endOfHashtag(String text, int start) {
+        int end = start;
+        while (end < text.length() && isTagCharacter(text.codePointAt(end))) {
+            end += Character.charCount(text.codePointAt(end));
+        }
+        return end;
+    }
+
+    private static int endOfMention(String text, int start) {
+        int end = endOfHashtag(text, start);
+        // A dot or hyphen only continues the mention when a tag character follows it
+        while (end > start && end + 1 < text.length() && isMentionJoiner(text.charAt(end))
+                && isTagCharacter(text.codePointAt(end + 1))) {
+            end = endOfHashtag(text, end + 1);
+        }
+        return end;
+    }
+
+    private static boolean isMentionJoiner(char c) {
+        return c == '.' || c == '-';
+    }
+
+    private static boolean isTagCharacter(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) || codePoint == '_';
+    }
+}
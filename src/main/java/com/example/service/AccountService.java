@@ -1,20 +1,51 @@
 package com.example.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.stream.Stream;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.cache.TimelineCache;
+import com.example.cache.UsernameBloomFilter;
 import com.example.entity.Account;
+import com.example.exception.InvalidAccountException;
 import com.example.exception.InvalidLoginException;
+import com.example.exception.UsernameExistsException;
 import com.example.repository.AccountRepository;
 
 @Service
+@Profile("!reactive")
 public class AccountService {
 
+    static final String USERNAME_EXISTS_MESSAGE = "Username already exists. Try a different username";
+
     private AccountRepository accountRepository;
+    private TimelineCache timelineCache;
+    private UsernameBloomFilter usernameFilter;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository){
+    public AccountService(AccountRepository accountRepository, TimelineCache timelineCache, UsernameBloomFilter usernameFilter){
         this.accountRepository = accountRepository;
+        this.timelineCache = timelineCache;
+        this.usernameFilter = usernameFilter;
+    }
+
+    /**
+     * Fills the username Bloom filter with every registered username once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadUsernameFilter() {
+        try (Stream<String> usernames = accountRepository.streamAllUsernames()) {
+            usernames.forEach(usernameFilter::add);
+        }
     }
 
 
@@ -25,43 +56,71 @@ public class AccountService {
      * if it meets all requirements (username uniqueness, non-blank username,
      * and password of at least 4 characters).
      *
+     * Username uniqueness is enforced by the unique index on account.username: the account
+     * is inserted directly and a constraint violation is reported as a duplicate username.
+     * The username Bloom filter lets names that have never been registered skip the lookup;
+     * only names the filter reports as possibly taken are checked before the insert.
+     *
      * @param newAccount the Account object containing the user's registration details.
      * @return the persisted Account with a generated account ID.
-     * @throws IllegalArgumentException if the username is taken, blank,
-     *         or the password is too short.
+     * @throws UsernameExistsException if the username is taken.
+     * @throws InvalidAccountException if the username is blank or the password is too short.
      */
-    public Account register(Account newAccount) throws IllegalArgumentException{
-        // Check if username already exists in the database
-        if (accountRepository.findByUsername(newAccount.getUsername()).isPresent()){
-            throw new IllegalArgumentException("Username already exists. Try a different username");
+    public Account register(Account newAccount) throws UsernameExistsException, InvalidAccountException{
+        // Only look the username up if the filter has possibly seen it before
+        if (usernameFilter.mightContain(newAccount.getUsername()) &&
+            accountRepository.findByUsername(newAccount.getUsername()).isPresent()){
+            throw new UsernameExistsException(USERNAME_EXISTS_MESSAGE);
         }
         // Ensure that the username is not blank
         if (newAccount.getUsername().isBlank()) {
-            throw new IllegalArgumentException("Username cannot be blank");
+            throw new InvalidAccountException("Username cannot be blank");
         }
         // Ensure that the password meets the minimum length requirement
         if (newAccount.getPassword().length() < 4) {
-            throw new IllegalArgumentException("Password needs to be at least 4 characters long");
+            throw new InvalidAccountException("Password needs to be at least 4 characters long");
         }
         // Save the new account and return it if it meets all of the requirements
-        return accountRepository.save(newAccount);
+        Account savedAccount;
+        try {
+            savedAccount = accountRepository.saveAndFlush(newAccount);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent registration took the username between the check and the insert
+            usernameFilter.add(newAccount.getUsername());
+            throw new UsernameExistsException(USERNAME_EXISTS_MESSAGE);
+        }
+        usernameFilter.add(savedAccount.getUsername());
+        // The timeline cache may remember this account ID as not existing
+        timelineCache.invalidate(savedAccount.getAccountId());
+        return savedAccount;
     }
 
     /**
      * Logs a user into their account by validating their credentials.
      *
-     * Looks up the account in the database using the provided username and password.
-     * If a matching account is found, it is returned.
+     * Looks up the account by username, from the query cache when possible, and compares the
+     * provided password with the account's. If they match, the account is returned.
      *
      * @param username the username entered by the user.
      * @param password the password entered by the user.
      * @return the Account object from the database that matches the credentials.
      * @throws InvalidLoginException if the credentials are invalid or no match is found.
      */
+    @Transactional(readOnly = true)
     public Account login(String username, String password) throws InvalidLoginException {
-        // Attempt to find an account matching the provided credentials
-        return accountRepository.findByUsernameAndPassword(username, password)
+        // Compare the password here, so it is not part of the cached query
+        return accountRepository.findByUsername(username)
+            .filter(account -> passwordMatches(account, password))
             .orElseThrow(() -> new InvalidLoginException("Invalid username or password."));
     }
+
+    /**
+     * Compares the passwords in constant time, so the response time does not reveal how much
+     * of a guessed password is right.
+     */
+    private static boolean passwordMatches(Account account, String password) {
+        return password != null && account.getPassword() != null && MessageDigest.isEqual(
+            password.getBytes(StandardCharsets.UTF_8), account.getPassword().getBytes(StandardCharsets.UTF_8));
+    }
    
 }
@@ -0,0 +1,296 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.cache.HomeTimelineCache;
+import com.example.cache.HomeTimelineCache.HomeTimeline;
+import com.example.dto.MessageCursor;
+import com.example.dto.MessagePage;
+import com.example.dto.MessageView;
+import com.example.exception.AccountNotFoundException;
+import com.example.exception.InvalidFollowException;
+import com.example.exception.InvalidPageException;
+import com.example.repository.AccountRepository;
+import com.example.repository.FollowRepository;
+import com.example.repository.MessageStore;
+
+/**
+ * The follow graph and the home feed of each account.
+ *
+ * The feed of an account holds the messages of the accounts it follows, newest first. It is
+ * served from the account's home timeline in the HomeTimelineCache, which MessageService fills
+ * by calling messageCreated after each new message has been committed (fan-out on write).
+ *
+ * An account with at least app.feed.fan-out-threshold followers is not fanned out to, since
+ * every message would touch that many home timelines. Its messages are read when a follower
+ * reads their feed instead (fan-out on read). Follower counts are loaded at startup and kept
+ * up to date by follow and unfollow.
+ */
+@Service
+@Profile("!reactive")
+public class FeedService {
+
+    private static final Comparator<MessageCursor> NEWEST_FIRST = Comparator
+        .comparingLong(MessageCursor::getTimePostedEpoch)
+        .thenComparingInt(MessageCursor::getMessageId)
+        .reversed();
+
+    private FollowRepository followRepository;
+    private AccountRepository accountRepository;
+    private MessageStore messageStore;
+    private HomeTimelineCache homeTimelines;
+    private int fanOutThreshold;
+    private final ConcurrentHashMap<Integer, Integer> followerCounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FeedService(FollowRepository followRepository, AccountRepository accountRepository,
+                       MessageStore messageStore, HomeTimelineCache homeTimelines,
+                       @Value("${app.feed.fan-out-threshold:10000}") int fanOutThreshold){
+        this.followRepository = followRepository;
+        this.accountRepository = accountRepository;
+        this.messageStore = messageStore;
+        this.homeTimelines = homeTimelines;
+        this.fanOutThreshold = fanOutThreshold;
+    }
+
+    /**
+     * Loads the follower count of every followed account once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFollowerCounts() {
+        followerCounts.putAll(followRepository.countFollowers());
+    }
+
+    /**
+     * Makes an account follow another one.
+     *
+     * The follower's home timeline is rebuilt on its next read, so it includes the newly
+     * followed account's existing messages.
+     *
+     * @param followerId the ID of the account that follows
+     * @param followeeId the ID of the account to follow
+     * @return true if the account now follows the other one, false if it already did
+     * @throws InvalidFollowException if both IDs are the same account
+     * @throws AccountNotFoundException if either account does not exist
+     */
+    public boolean follow(int followerId, int followeeId) throws InvalidFollowException, AccountNotFoundException {
+        validateFollow(followerId, followeeId);
+        if (!followRepository.follow(followerId, followeeId)) {
+            return false;
+        }
+        homeTimelines.invalidate(followerId);
+        int followers = followerCounts.merge(followeeId, 1, Integer::sum);
+        if (followers == fanOutThreshold) {
+            fanOutModeChanged(followeeId);
+        }
+        return true;
+    }
+
+    /**
+     * Makes an account stop following another one.
+     *
+     * @param followerId the ID of the account that follows
+     * @param followeeId the ID of the account to unfollow
+     * @return true if the account followed the other one, false if it did not
+     * @throws InvalidFollowException if both IDs are the same account
+     * @throws AccountNotFoundException if either account does not exist
+     */
+    public boolean unfollow(int followerId, int followeeId) throws InvalidFollowException, AccountNotFoundException {
+        validateFollow(followerId, followeeId);
+        if (!followRepository.unfollow(followerId, followeeId)) {
+            return false;
+        }
+        homeTimelines.invalidate(followerId);
+        Integer followers = followerCounts.computeIfPresent(followeeId, (id, count) -> count == 1 ? null : count - 1);
+        if ((followers == null ? 0 : followers) == fanOutThreshold - 1) {
+            fanOutModeChanged(followeeId);
+        }
+        return true;
+    }
+
+    private void validateFollow(int followerId, int followeeId) throws InvalidFollowException, AccountNotFoundException {
+        if (followerId == followeeId) {
+            throw new InvalidFollowException("An account cannot follow itself.");
+        }
+        if (!accountRepository.existsById(followerId) || !accountRepository.existsById(followeeId)) {
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+    }
+
+    /**
+     * Rebuilds the home timelines of an account's followers after the account crossed the
+     * fan-out threshold, in either direction, so they are filled the new way.
+     */
+    private void fanOutModeChanged(int accountId) {
+        for (int followerId : followRepository.findFollowerIds(accountId)) {
+            homeTimelines.invalidate(followerId);
+        }
+    }
+
+    private boolean isFannedOut(int accountId) {
+        return followerCounts.getOrDefault(accountId, 0) < fanOutThreshold;
+    }
+
+    /**
+     * Adds a new message to the home timelines of its author's followers. Must be called after
+     * the message has been committed.
+     *
+     * @param message the new message
+     */
+    public void messageCreated(MessageView message) {
+        int postedBy = message.getPostedBy();
+        if (!followerCounts.containsKey(postedBy) || !isFannedOut(postedBy)) {
+            return;
+        }
+        homeTimelines.fanOut(followRepository.findFollowerIds(postedBy), MessageCursor.of(message));
+    }
+
+    /**
+     * Removes a deleted message from the home timelines of its author's followers. Must be
+     * called after the message has been deleted.
+     *
+     * @param messageId the ID of the deleted message
+     * @param postedBy the ID of the message's author
+     */
+    public void messageDeleted(int messageId, int postedBy) {
+        if (!followerCounts.containsKey(postedBy) || !isFannedOut(postedBy)) {
+            return;
+        }
+        homeTimelines.remove(followRepository.findFollowerIds(postedBy), messageId);
+    }
+
+    /**
+     * Retrieves one page of an account's feed: the messages of the accounts it follows, newest first.
+     *
+     * The page is read from the account's home timeline, merged with the messages of the
+     * followed accounts that are not fanned out, which are read with one query. Only when a page
+     * reaches past the oldest message held in the home timeline are the older messages of the
+     * fanned-out followed accounts read from the database, again with one query limited to the
+     * rest of the page, so a page reads O(page size) messages however many accounts are followed.
+     *
+     * @param accountId the ID of the account whose feed to read
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws AccountNotFoundException If the account does not exist.
+     * @throws InvalidPageException If the limit is out of range or the cursor is invalid.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getFeedPage(int accountId, Integer limit, String after) throws AccountNotFoundException, InvalidPageException {
+        int pageSize = MessageService.validatePageSize(limit);
+        MessageCursor cursor = after == null ? null : MessageCursor.decode(after);
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+        HomeTimeline timeline = homeTimelines.get(accountId, this::buildHomeTimeline);
+
+        // Read one extra message to find out whether another page follows
+        List<MessageCursor> positions = new ArrayList<>(timeline.page(cursor, pageSize + 1));
+        if (positions.size() <= pageSize && timeline.isTruncated()) {
+            MessageCursor oldest = positions.isEmpty() ? cursor : positions.get(positions.size() - 1);
+            Pageable rest = PageRequest.of(0, pageSize + 1 - positions.size());
+            List<Integer> fannedOut = new ArrayList<>();
+            for (int followeeId : followRepository.findFolloweeIds(accountId)) {
+                if (isFannedOut(followeeId)) {
+                    fannedOut.add(followeeId);
+                }
+            }
+            addPositions(positions, readTimelines(fannedOut, oldest, rest));
+        }
+        List<Integer> pulled = IntStream.of(timeline.getPulledAccountIds()).boxed().collect(Collectors.toList());
+        addPositions(positions, readTimelines(pulled, cursor, PageRequest.of(0, pageSize + 1)));
+        positions.sort(NEWEST_FIRST);
+        if (positions.size() > pageSize + 1) {
+            positions = positions.subList(0, pageSize + 1);
+        }
+        return MessageService.toPage(readMessages(positions), pageSize);
+    }
+
+    /**
+     * Builds the home timeline of an account from the newest messages of the accounts it follows.
+     *
+     * The messages of all fanned-out followed accounts are read with one query, limited to one
+     * more than the timeline holds, so a rebuild never reads more than timeline-size + 1 messages.
+     */
+    private HomeTimeline buildHomeTimeline(int accountId) {
+        int size = homeTimelines.getTimelineSize();
+        List<Integer> fannedOut = new ArrayList<>();
+        List<Integer> pulled = new ArrayList<>();
+        for (int followeeId : followRepository.findFolloweeIds(accountId)) {
+            if (isFannedOut(followeeId)) {
+                fannedOut.add(followeeId);
+            } else {
+                pulled.add(followeeId);
+            }
+        }
+        // One more than fits, to find out whether older messages are left out
+        List<MessageCursor> positions = new ArrayList<>();
+        addPositions(positions, readTimelines(fannedOut, null, PageRequest.of(0, size + 1)));
+        boolean truncated = positions.size() > size;
+        return new HomeTimeline(size, truncated ? positions.subList(0, size) : positions, truncated,
+            pulled.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Reads the newest messages of several accounts after a position with one query, newest first.
+     */
+    private List<MessageView> readTimelines(List<Integer> accountIds, MessageCursor after, Pageable pageable) {
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+        if (after == null) {
+            return messageStore.findFirstPageByAccountIds(accountIds, pageable);
+        }
+        return messageStore.findPageByAccountIdsAfter(accountIds, after.getTimePostedEpoch(), after.getMessageId(), pageable);
+    }
+
+    private static void addPositions(List<MessageCursor> positions, List<MessageView> messages) {
+        for (MessageView message : messages) {
+            positions.add(MessageCursor.of(message));
+        }
+    }
+
+    /**
+     * Reads the messages at the provided positions with one query, keeping their order.
+     * A message deleted since its position was read is left out.
+     */
+    private List<MessageView> readMessages(List<MessageCursor> positions) {
+        if (positions.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, MessageView> ordered = new LinkedHashMap<>();
+        for (MessageCursor position : positions) {
+            ordered.put(position.getMessageId(), null);
+        }
+        Map<Integer, MessageView> found = new HashMap<>();
+        for (MessageView message : messageStore.findViewsByIds(ordered.keySet())) {
+            found.put(message.getMessageId(), message);
+        }
+        List<MessageView> messages = new ArrayList<>(ordered.size());
+        for (Integer messageId : ordered.keySet()) {
+            MessageView message = found.get(messageId);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.cache.MessageCounters;
+import com.example.cache.MessageCounters.Snapshot;
+import com.example.datasource.ReadWriteRoutingDataSource;
+import com.example.dto.AccountMessageCount;
+import com.example.repository.MessageStore;
+
+/**
+ * Loads the MessageCounters from the database on startup, and reconciles them against
+ * COUNT(*) every app.counters.reconcile-interval on a background thread, so requests never
+ * wait for a count query.
+ *
+ * It is started in an earlier lifecycle phase than the web server, so the counts are loaded
+ * before the first request can be accepted.
+ */
+@Component
+@Profile("!reactive")
+public class MessageCountReconciler implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageCountReconciler.class);
+
+    private MessageStore messageStore;
+    private MessageCounters messageCounters;
+    private Duration reconcileInterval;
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public MessageCountReconciler(MessageStore messageStore, MessageCounters messageCounters,
+                                  @Value("${app.counters.reconcile-interval:1m}") Duration reconcileInterval){
+        this.messageStore = messageStore;
+        this.messageCounters = messageCounters;
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    /**
+     * Loads the counts before the web server is started, then starts reconciling them.
+     */
+    @Override
+    public void start() {
+        reconcile();
+        executor = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "message-count-reconciler"));
+        executor.scheduleWithFixedDelay(this::reconcileQuietly, reconcileInterval.toNanos(), reconcileInterval.toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * The web server starts in the last lifecycle phases; this one runs well before them.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Corrects the counters to the current counts in the database.
+     */
+    void reconcile() {
+        Snapshot before = messageCounters.snapshot();
+        // A lagging replica would undo the counts of recent writes
+        List<AccountMessageCount> counts = ReadWriteRoutingDataSource.readFromPrimary(messageStore::countMessagesByAccount);
+        messageCounters.reconcile(before, counts);
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Message count reconciliation failed, retrying in {}", reconcileInterval, e);
+        }
+    }
+}
@@ -1,25 +1,130 @@
 package com.example.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.cache.MessageCache;
+import com.example.cache.MessageCounters;
+import com.example.cache.TimelineCache.Timeline;
+import com.example.cache.TimelineCache;
+import com.example.datasource.ReadWriteRoutingDataSource;
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessageCursor;
+import com.example.dto.MessageEvent;
+import com.example.dto.MessagePage;
+import com.example.dto.MessageSearchResult;
+import com.example.dto.MessageView;
+import com.example.entity.Account;
 import com.example.entity.Message;
+import com.example.exception.AccountNotFoundException;
+import com.example.exception.InvalidBatchException;
+import com.example.exception.InvalidMessageException;
+import com.example.exception.InvalidPageException;
+import com.example.exception.InvalidSearchQueryException;
+import com.example.exception.InvalidTimeRangeException;
+import com.example.exception.MessageNotFoundException;
+import com.example.exception.WriteQueueFullException;
+import com.example.exception.WriteTimeoutException;
 import com.example.repository.AccountRepository;
-import com.example.repository.MessageRepository;
+import com.example.repository.MessageBatchWriter;
+import com.example.repository.MessageStore;
+import com.example.search.MessageSearchIndex;
+import com.example.search.MessageTags;
+import com.example.stream.MessageEventStream;
 
 @Service
+@Profile("!reactive")
 public class MessageService {
 
-    private MessageRepository messageRepository;
+    private static final Logger log = LoggerFactory.getLogger(MessageService.class);
+
+    /** Page size used when the client asks for a page without providing a limit */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    /** Largest page size a client may request */
+    public static final int MAX_PAGE_SIZE = 1000;
+    /** Largest number of messages accepted in one batch */
+    public static final int MAX_BATCH_SIZE = 1000;
+    /** Largest number of distinct words in a search query */
+    public static final int MAX_SEARCH_TERMS = 16;
+    /** Largest number of ranked search results a client may skip */
+    public static final int MAX_SEARCH_OFFSET = 10000;
+
+    private MessageStore messageStore;
     private AccountRepository accountRepository;
+    private MessageCache messageCache;
+    private TimelineCache timelineCache;
+    private MessageBatchWriter messageBatchWriter;
+    private MessageEventStream messageEventStream;
+    private MessageSearchIndex searchIndex;
+    private FeedService feedService;
+    private MessageCounters messageCounters;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    public MessageService(MessageRepository messageRepository, AccountRepository accountRepository){
-        this.messageRepository = messageRepository;
+    public MessageService(MessageStore messageStore, AccountRepository accountRepository,
+                          MessageCache messageCache, TimelineCache timelineCache,
+                          MessageBatchWriter messageBatchWriter, MessageEventStream messageEventStream,
+                          MessageSearchIndex searchIndex, FeedService feedService,
+                          MessageCounters messageCounters, PlatformTransactionManager transactionManager){
+        this.messageStore = messageStore;
         this.accountRepository = accountRepository;
+        this.messageCache = messageCache;
+        this.timelineCache = timelineCache;
+        this.messageBatchWriter = messageBatchWriter;
+        this.messageEventStream = messageEventStream;
+        this.searchIndex = searchIndex;
+        this.feedService = feedService;
+        this.messageCounters = messageCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Builds the search index from every stored message once the application has started.
+     *
+     * The messages are read from the primary, a replica may not have caught up yet. Messages
+     * indexed by a create or update in the meantime keep their newer text, and messages
+     * deleted in the meantime are not put back.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadSearchIndex() {
+        searchIndex.beginLoad();
+        try {
+            ReadWriteRoutingDataSource.readFromPrimary(() -> {
+                try (Stream<MessageView> messages = messageStore.streamAll()) {
+                    messages.forEach(message -> searchIndex.putIfAbsent(
+                        message.getMessageId(), message.getPostedBy(), message.getMessageText()));
+                }
+                return null;
+            });
+        } finally {
+            searchIndex.endLoad();
+        }
     }
 
     /**
@@ -27,121 +132,652 @@ public class MessageService {
      * 
      * Validates the provided Message object and persists it in the database
      * if it meets all requirements (postedBy Id exists in the database, text is non-blank
-     * and text is not longer than 255 characters).
+     * and text is not longer than 255 characters). Its hashtags and mentions are stored in
+     * the same transaction.
+     * When write-behind is enabled the message is written by the MessageBatchWriter in a batch
+     * with other new messages, and this method returns once that batch has been committed, or
+     * fails once the writer's commit timeout has passed without a commit.
      * @param newMessage the Message object containing the postedBy ID (the Account that is posting),
-     *        the message text, and the time it is posted.
+     *        the message text, and the time it is posted. Without a time posted, it is posted now.
      * @return the persisted Message with a generated message ID.
-     * @throws IllegalArgumentException if the postedBy ID (Account) of the message does not exist
-     *         in the database or if the message text is blank or too long
+     * @throws AccountNotFoundException if the postedBy ID (Account) of the message does not exist
+     *         in the database
+     * @throws InvalidMessageException if the message text is blank or too long
+     * @throws WriteQueueFullException if write-behind is enabled and its queue is full
+     * @throws WriteTimeoutException if write-behind is enabled and the message's batch was not
+     *         committed within the commit timeout; the message may still be written later
      */
-    public Message createMessage(Message newMessage) throws IllegalArgumentException{
+    public Message createMessage(Message newMessage) throws AccountNotFoundException, InvalidMessageException, WriteQueueFullException{
+        validateNewMessage(newMessage);
+
+        if (messageBatchWriter.isEnabled()) {
+            try {
+                // The timeout only stops the wait; a batch committed later still updates the caches
+                return messageBatchWriter.submit(newMessage).thenApply(this::messageCreated)
+                    .orTimeout(messageBatchWriter.getCommitTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    throw new WriteTimeoutException("The message was not written in time. Try again later.");
+                }
+                // The batch writer only fails futures with unchecked exceptions
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return messageCreated(messageStore.saveAllWithTags(List.of(newMessage)).get(0));
+    }
+
+    /**
+     * Accepts a new message for write-behind without waiting for it to be written.
+     * 
+     * The message is validated like in createMessage and assigned its message ID, then queued
+     * for the MessageBatchWriter. It becomes visible to reads once its batch has been committed.
+     * If its batch fails, the message is lost; the failure is logged here and counted by the
+     * MessageBatchWriter.
+     * @param newMessage the Message object containing the postedBy ID, the message text, and the time it is posted.
+     * @return the accepted Message with its assigned message ID.
+     * @throws AccountNotFoundException if the postedBy ID (Account) of the message does not exist
+     *         in the database
+     * @throws InvalidMessageException if the message text is blank or too long
+     * @throws WriteQueueFullException if the write-behind queue is full
+     */
+    public Message acceptMessage(Message newMessage) throws AccountNotFoundException, InvalidMessageException, WriteQueueFullException{
+        validateNewMessage(newMessage);
+        messageBatchWriter.submit(newMessage).whenComplete((savedMessage, failure) -> {
+            if (failure == null) {
+                messageCreated(savedMessage);
+            } else {
+                log.error("Accepted message {} of account {} was not written", newMessage.getMessageId(),
+                    newMessage.getPostedBy(), failure);
+            }
+        });
+        return newMessage;
+    }
+
+    /**
+     * @return true if new messages are acknowledged as soon as they are queued, in which case
+     *         clients should call acceptMessage instead of createMessage
+     */
+    public boolean isAcknowledgeOnEnqueue() {
+        return messageBatchWriter.isEnabled() && messageBatchWriter.isAcknowledgeOnEnqueue();
+    }
+
+    private void validateNewMessage(Message newMessage) throws AccountNotFoundException, InvalidMessageException{
         // Ensure the account associated with postedBy exists
         if (!accountRepository.existsById(newMessage.getPostedBy())){
-            throw new IllegalArgumentException("The account does not exist.");
+            throw new AccountNotFoundException("The account does not exist.");
         }
         // Validate message text. Must not be blank or exceed 255 characters
-        if (newMessage.getMessageText() == null || 
-            newMessage.getMessageText().isBlank() || 
-            newMessage.getMessageText().isEmpty() ||
-            newMessage.getMessageText().length() > 255){
-            throw new IllegalArgumentException("Message cannot be blank or over 255 characters.");
+        validateMessageText(newMessage.getMessageText());
+        defaultTimePosted(newMessage);
+    }
+
+    private Message messageCreated(Message savedMessage) {
+        MessageView view = MessageView.of(savedMessage);
+        messageCache.put(view);
+        timelineCache.invalidate(savedMessage.getPostedBy());
+        messageCounters.messageCreated(savedMessage.getPostedBy());
+        searchIndex.put(savedMessage.getMessageId(), savedMessage.getPostedBy(), savedMessage.getMessageText());
+        feedService.messageCreated(view);
+        messageEventStream.publish(MessageEvent.created(view));
+        return savedMessage;
+    }
+
+    /**
+     * Creates a batch of new messages.
+     * 
+     * Each message is validated with the same rules as createMessage. The postedBy IDs of
+     * the whole batch are checked with a single query, and the valid messages are inserted
+     * in one saveAll transaction so Hibernate can send them to the database as JDBC batches.
+     * Their hashtags and mentions are stored in the same transaction.
+     * Invalid messages are reported in the result and do not prevent the valid ones from being saved.
+     * 
+     * @param newMessages the Message objects to create
+     * @return one result per message, in request order, holding either the persisted Message or the validation error
+     * @throws InvalidBatchException if the batch is empty or larger than MAX_BATCH_SIZE
+     */
+    public List<BatchItemResult> createMessages(List<Message> newMessages) throws InvalidBatchException{
+        if (newMessages == null || newMessages.isEmpty() || newMessages.size() > MAX_BATCH_SIZE){
+            throw new InvalidBatchException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " messages.");
+        }
+        // Check every distinct postedBy ID with one query
+        Set<Integer> postedByIds = new HashSet<>();
+        for (Message message : newMessages){
+            if (message != null && message.getPostedBy() != null){
+                postedByIds.add(message.getPostedBy());
+            }
+        }
+        Set<Integer> existingAccountIds = postedByIds.isEmpty()
+            ? Set.of()
+            : accountRepository.findExistingAccountIds(postedByIds);
+
+        List<BatchItemResult> results = new ArrayList<>(newMessages.size());
+        List<Message> validMessages = new ArrayList<>(newMessages.size());
+        for (int i = 0; i < newMessages.size(); i++){
+            Message message = newMessages.get(i);
+            if (message == null || message.getPostedBy() == null || !existingAccountIds.contains(message.getPostedBy())){
+                results.add(BatchItemResult.failure(i, "The account does not exist."));
+                continue;
+            }
+            try {
+                validateMessageText(message.getMessageText());
+            } catch (InvalidMessageException e) {
+                results.add(BatchItemResult.failure(i, e.getMessage()));
+                continue;
+            }
+            defaultTimePosted(message);
+            // Placeholder, replaced once the message has been assigned its ID
+            results.add(null);
+            validMessages.add(message);
         }
 
-        return messageRepository.save(newMessage);
+        // The messages are committed before returning, so the affected timelines can be invalidated afterwards
+        List<Message> savedMessages = messageStore.saveAllWithTags(validMessages);
+        for (Message savedMessage : savedMessages){
+            timelineCache.invalidate(savedMessage.getPostedBy());
+            messageCounters.messageCreated(savedMessage.getPostedBy());
+            searchIndex.put(savedMessage.getMessageId(), savedMessage.getPostedBy(), savedMessage.getMessageText());
+            MessageView view = MessageView.of(savedMessage);
+            feedService.messageCreated(view);
+            messageEventStream.publish(MessageEvent.created(view));
+        }
+        int saved = 0;
+        for (int i = 0; i < results.size(); i++){
+            if (results.get(i) == null){
+                results.set(i, BatchItemResult.success(i, savedMessages.get(saved++)));
+            }
+        }
+        return results;
     }
 
     /**
      * Retrieves all messsages stored in the database
      * 
-     * @return A list of all Message objects
+     * @return A list of all messages, in message ID order
+     */
+    @Transactional(readOnly = true)
+    public List<MessageView> getAllMessages() {
+        return messageStore.findAllViews();
+    }
+
+    /**
+     * Retrieves one page of all messages, newest first.
+     *
+     * Uses keyset pagination: the page is read with a seek query positioned after the
+     * provided cursor, so reading page N costs the same as reading the first page.
+     *
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws InvalidPageException if the limit is out of range or the cursor is invalid
      */
-    public List<Message> getAllMessages() {
-        return messageRepository.findAll();
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesPage(Integer limit, String after) throws InvalidPageException {
+        int pageSize = validatePageSize(limit);
+        // Read one extra row to find out whether another page follows
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<MessageView> messages;
+        if (after == null) {
+            messages = messageStore.findFirstPage(pageable);
+        } else {
+            MessageCursor cursor = MessageCursor.decode(after);
+            messages = messageStore.findPageAfter(cursor.getTimePostedEpoch(), cursor.getMessageId(), pageable);
+        }
+        return toPage(messages, pageSize);
+    }
+
+    /**
+     * Retrieves all messages posted in a time range, oldest first.
+     *
+     * The range is read with one index range scan on timePostedEpoch, so only the matching
+     * messages are read.
+     *
+     * @param since the optional earliest timePostedEpoch to include, or null for no lower bound
+     * @param until the optional timePostedEpoch at which to stop (exclusive), or null for no upper bound
+     * @return the messages in the range, ordered by post time and then message ID
+     * @throws InvalidTimeRangeException if since is not before until
+     */
+    @Transactional(readOnly = true)
+    public List<MessageView> getMessagesInTimeRange(Long since, Long until) throws InvalidTimeRangeException {
+        validateTimeRange(since, until);
+        return readTimeRange(null, since, until, null, Pageable.unpaged());
+    }
+
+    /**
+     * Retrieves one page of the messages posted in a time range, oldest first.
+     *
+     * Pages are read with a seek query positioned after the provided cursor, like the
+     * newest-first pages, but in the opposite direction. A cursor is only valid for the
+     * time range it was returned for.
+     *
+     * @param since the optional earliest timePostedEpoch to include, or null for no lower bound
+     * @param until the optional timePostedEpoch at which to stop (exclusive), or null for no upper bound
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws InvalidTimeRangeException if since is not before until
+     * @throws InvalidPageException if the limit is out of range or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesPageInTimeRange(Long since, Long until, Integer limit, String after) throws InvalidTimeRangeException, InvalidPageException {
+        validateTimeRange(since, until);
+        int pageSize = validatePageSize(limit);
+        MessageCursor cursor = after == null ? null : MessageCursor.decode(after);
+        // Read one extra row to find out whether another page follows
+        return toPage(readTimeRange(null, since, until, cursor, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Retrieves all messages posted by a specific user in a time range, oldest first.
+     *
+     * @param accountId The unique identifier for the account whose messages are to be retrieved.
+     * @param since the optional earliest timePostedEpoch to include, or null for no lower bound
+     * @param until the optional timePostedEpoch at which to stop (exclusive), or null for no upper bound
+     * @return the account's messages in the range, ordered by post time and then message ID
+     * @throws AccountNotFoundException If the account does not exist.
+     * @throws InvalidTimeRangeException if since is not before until
+     */
+    @Transactional(readOnly = true)
+    public List<MessageView> getMessagesInTimeRangeFromUser(int accountId, Long since, Long until) throws AccountNotFoundException, InvalidTimeRangeException {
+        validateTimeRange(since, until);
+        if (!accountRepository.existsById(accountId)){
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+        return readTimeRange(accountId, since, until, null, Pageable.unpaged());
+    }
+
+    /**
+     * Retrieves one page of the messages posted by a specific user in a time range, oldest first.
+     *
+     * @param accountId The unique identifier for the account whose messages are to be retrieved.
+     * @param since the optional earliest timePostedEpoch to include, or null for no lower bound
+     * @param until the optional timePostedEpoch at which to stop (exclusive), or null for no upper bound
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws AccountNotFoundException If the account does not exist.
+     * @throws InvalidTimeRangeException if since is not before until
+     * @throws InvalidPageException If the limit is out of range or the cursor is invalid.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesPageInTimeRangeFromUser(int accountId, Long since, Long until, Integer limit, String after)
+            throws AccountNotFoundException, InvalidTimeRangeException, InvalidPageException {
+        validateTimeRange(since, until);
+        int pageSize = validatePageSize(limit);
+        MessageCursor cursor = after == null ? null : MessageCursor.decode(after);
+        if (!accountRepository.existsById(accountId)){
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+        return toPage(readTimeRange(accountId, since, until, cursor, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    private List<MessageView> readTimeRange(Integer accountId, Long since, Long until, MessageCursor after, Pageable pageable) {
+        long from = since == null ? Long.MIN_VALUE : since;
+        long to = until == null ? Long.MAX_VALUE : until;
+        if (accountId == null) {
+            return after == null
+                ? messageStore.findByTimeRange(from, to, pageable)
+                : messageStore.findByTimeRangeAfter(from, to, after.getTimePostedEpoch(), after.getMessageId(), pageable);
+        }
+        return after == null
+            ? messageStore.findByAccountIdAndTimeRange(accountId, from, to, pageable)
+            : messageStore.findByAccountIdAndTimeRangeAfter(accountId, from, to, after.getTimePostedEpoch(), after.getMessageId(), pageable);
+    }
+
+    /**
+     * Streams messages to the provided consumer, one at a time, in message ID order.
+     * 
+     * Messages are read through a forward-only database cursor inside a read-only transaction
+     * as unmanaged views, so memory use does not grow with the number of messages.
+     * 
+     * @param postedBy the optional account ID to filter by, or null for all accounts
+     * @param since the optional earliest timePostedEpoch to include, or null for no lower bound
+     * @param until the optional timePostedEpoch at which to stop (exclusive), or null for no upper bound
+     * @param consumer receives each message as it is read
+     * @throws InvalidTimeRangeException if since is not before until
+     */
+    @Transactional(readOnly = true)
+    public void exportMessages(Integer postedBy, Long since, Long until, Consumer<MessageView> consumer) throws InvalidTimeRangeException {
+        validateTimeRange(since, until);
+        boolean timeFiltered = since != null || until != null;
+        long from = since == null ? Long.MIN_VALUE : since;
+        long to = until == null ? Long.MAX_VALUE : until;
+        Stream<MessageView> messages;
+        if (postedBy == null) {
+            messages = timeFiltered ? messageStore.streamByTimeRange(from, to) : messageStore.streamAll();
+        } else {
+            messages = timeFiltered ? messageStore.streamByAccountIdAndTimeRange(postedBy, from, to)
+                                    : messageStore.streamByAccountId(postedBy);
+        }
+        try (messages) {
+            messages.forEach(consumer);
+        }
+    }
+
+    /**
+     * Searches the text of all messages, best match first.
+     *
+     * The query is split into words the same way message text is indexed, and only messages
+     * containing every word match. Matches are found and ranked in the in-memory search index,
+     * so no query scans the message table; only the messages on the requested page are read.
+     *
+     * @param query the words to search for
+     * @param postedBy the optional account ID to filter by, or null for all accounts
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param offset the number of ranked matches to skip, or null to start at the best match
+     * @return the page of matching messages along with the total number of matches
+     * @throws InvalidSearchQueryException if the query has no words or more than MAX_SEARCH_TERMS distinct words
+     * @throws InvalidPageException if the limit or offset is out of range
+     */
+    @Transactional(readOnly = true)
+    public MessageSearchResult searchMessages(String query, Integer postedBy, Integer limit, Integer offset)
+            throws InvalidSearchQueryException, InvalidPageException {
+        List<String> terms = MessageSearchIndex.tokenize(query);
+        int distinctTerms = new LinkedHashSet<>(terms).size();
+        if (distinctTerms == 0 || distinctTerms > MAX_SEARCH_TERMS) {
+            throw new InvalidSearchQueryException("Search query must contain between 1 and " + MAX_SEARCH_TERMS + " words.");
+        }
+        int pageSize = validatePageSize(limit);
+        int skip = offset == null ? 0 : offset;
+        if (skip < 0 || skip > MAX_SEARCH_OFFSET) {
+            throw new InvalidPageException("Offset must be between 0 and " + MAX_SEARCH_OFFSET + ".");
+        }
+
+        MessageSearchIndex.Hits hits = searchIndex.search(terms, postedBy, skip, pageSize);
+        int[] messageIds = hits.getMessageIds();
+        if (messageIds.length == 0) {
+            return new MessageSearchResult(List.of(), hits.getTotal());
+        }
+        List<Integer> ids = new ArrayList<>(messageIds.length);
+        for (int messageId : messageIds) {
+            ids.add(messageId);
+        }
+        Map<Integer, MessageView> found = new HashMap<>();
+        for (MessageView message : messageStore.findViewsByIds(ids)) {
+            found.put(message.getMessageId(), message);
+        }
+        // Put the messages back in rank order. A message deleted since the search is left out
+        List<MessageView> messages = new ArrayList<>(messageIds.length);
+        for (int messageId : messageIds) {
+            MessageView message = found.get(messageId);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return new MessageSearchResult(messages, hits.getTotal());
     }
 
     /**
      * Retrieves a message by its unique message ID
      * 
-     * This method attempts to retrieve the message from the database by the
-     * provided message ID.  If the message exists, it is returned.  If it doesn't
-     * exist, then null is returned.
+     * This method attempts to retrieve the message from the message cache, or from
+     * the database by the provided message ID on a cache miss.  If the message exists,
+     * it is returned.  If it doesn't exist, then null is returned.
      * @param id the message ID of the Message to retrieve
-     * @return the Message object if it is found, or null if no message exists
+     * @return the message if it is found, or null if no message exists
      *         in the database with the provided message ID
      */
-    public Message getMessageById(int id) {
-        return messageRepository.findById(id).orElse(null);
+    @Transactional(readOnly = true)
+    public MessageView getMessageById(int id) {
+        return messageCache.get(id, messageId -> messageStore.findViewById(messageId).orElse(null));
     }
 
     /**
      * Deletes a message by its unique message ID
      * 
-     * This method attempts to retrieve the message from the database and then delete it
-     * if it is found. It returns 1 to indicate that a row was deleted. If the message does
-     * not exist, it returns 0 to indicate that no rows were deleted. This allows the 
-     * controller to determine the appropriate response.
+     * This method reads the message's author and issues a single bulk DELETE for the message,
+     * in one transaction, and returns the number of rows it removed: 1 if the message existed,
+     * 0 if it was not found. This allows the 
+     * controller to determine the appropriate response. The cached copies of the message
+     * and of its author's timeline are invalidated, the message counts are decremented, the
+     * message is removed from the search index and from the home timelines of its author's
+     * followers, and a deleted event is published.
      * 
      * @param id the message Id of the Message to delete
      * @return 1 if the message existed and was deleted; 0 if the message was not found
      */
     public int deleteMessageById(int id) {
-        if (messageRepository.findById(id).isPresent()){
-            messageRepository.deleteById(id);
-            return 1; // 1 row was deleted
+        Optional<Integer> postedBy = messageStore.deleteMessageById(id);
+        if (postedBy.isEmpty()){
+            return 0; // No rows were deleted, the message was not found
         }
-        return 0; // No rows were deleted, the message was not found
+        messageCache.invalidate(id);
+        timelineCache.invalidate(postedBy.get());
+        messageCounters.messageDeleted(postedBy.get());
+        searchIndex.remove(id);
+        feedService.messageDeleted(id, postedBy.get());
+        messageEventStream.publish(MessageEvent.deleted(id, postedBy.get()));
+        return 1; // 1 row was deleted
     }
 
     /**
      * Updates the text of an existing message in the database.
      * 
+     * The text is validated first, then the message's author is read and the message is
+     * updated with a single bulk UPDATE statement. If no row was updated, the message does
+     * not exist. The hashtags and mentions
+     * of the message are replaced in the same transaction.
+     * 
      * @param id The unique ID of the message to be updated
      * @param messageText The new text string of the message
      * @return The number of rows affected (should be 1 if the update is successful)
-     * @throws IllegalArgumentException if the message does not exist or if the message text
-     *         is blank or greater than 255 characters
+     * @throws MessageNotFoundException if the message does not exist
+     * @throws InvalidMessageException if the message text is blank or greater than 255 characters
      */
-    public int updateMessage(int id, String messageText) throws IllegalArgumentException{
-        // Ensure the Message associated with id exists
-        Optional<Message> optionalMessage = messageRepository.findById(id);
-        if (optionalMessage.isEmpty()){
-            throw new IllegalArgumentException("The message does not exist.");
-        }
+    public int updateMessage(int id, String messageText) throws MessageNotFoundException, InvalidMessageException{
         // Validate message text. Must not be blank or exceed 255 characters
-        if (messageText == null || 
-            messageText.isBlank() || 
-            messageText.isEmpty() ||
-            messageText.length() > 255){
-            throw new IllegalArgumentException("Message cannot be blank or over 255 characters.");
+        validateMessageText(messageText);
+        // Update the message text in place and check that the message existed
+        Optional<Integer> postedBy = transactionTemplate.execute(status -> {
+            Optional<Integer> updated = messageStore.updateMessageText(id, messageText);
+            if (updated.isPresent()) {
+                messageStore.replaceTags(id, messageText);
+            }
+            return updated;
+        });
+        if (postedBy.isEmpty()){
+            throw new MessageNotFoundException("The message does not exist.");
         }
-        // Get the existing message from the database
-        Message updatedMessage = optionalMessage.get();
-        // Update the message text with the new value
-        updatedMessage.setMessageText(messageText);
-        // Save the updated message back to the database
-        messageRepository.save(updatedMessage);
-        // Return the number of rows affected (1 in this case since one message is updated)
-        return 1;
+        messageCache.updateText(id, messageText);
+        timelineCache.invalidate(postedBy.get());
+        searchIndex.put(id, postedBy.get(), messageText);
+        messageEventStream.publish(MessageEvent.updated(id, postedBy.get(), messageText));
+        return 1; // 1 row was updated
     }
 
     /**
      * Retrieves all messages posted by a specific user identified by the provided account ID.
      *
      * This method first checks if the account with the given accountId exists in the database
-     * If the account does not exist, an IllegalArgumentException is thrown with a relevant message.
+     * If the account does not exist, an AccountNotFoundException is thrown with a relevant message.
      * If the account exists, it retrieves all messages that have been posted by this account.
+     * Both answers are served from the timeline cache while the account has not been written to.
      *
      * @param accountId The unique identifier for the account whose messages are to be retrieved.
      *        This ID must correspond to an existing account in the system.
-     * @return A list of Message objects representing all messages posted by the account with the specified ID.
+     * @return A list of messages representing all messages posted by the account with the specified ID,
+     *         newest first.
      *         If no messages are found for the account, an empty list is returned.
-     * @throws IllegalArgumentException If the account with the given accountId does not exist.
+     * @throws AccountNotFoundException If the account with the given accountId does not exist.
+     */
+    @Transactional(readOnly = true)
+    public List<MessageView> getAllMessagesFromUser(int accountId){
+        // The timeline cache answers both whether the account exists and what it has posted
+        Timeline timeline = timelineCache.get(accountId, id -> accountRepository.existsById(id)
+            ? new Timeline(true, messageStore.findAllMessagesByAccountId(id))
+            : new Timeline(false, List.of()));
+        // Ensure the account associated with the provided accountId exists
+        if (!timeline.accountExists()){
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+        return timeline.getMessages();
+    }
+
+    /**
+     * Returns the number of stored messages.
+     *
+     * The count is read from the in-process MessageCounters, which are kept up to date by
+     * every create and delete and reconciled against the database in the background.
+     *
+     * @return the number of messages
+     */
+    public long getMessageCount() {
+        return messageCounters.getTotal();
+    }
+
+    /**
+     * Returns the number of messages posted by a specific user, from the MessageCounters.
+     *
+     * @param accountId The unique identifier for the account whose messages are to be counted.
+     * @return the number of messages posted by the account
+     * @throws AccountNotFoundException If the account with the given accountId does not exist.
+     */
+    public long getMessageCountFromUser(int accountId) {
+        long count = messageCounters.getCount(accountId);
+        // Only an account that has posted nothing needs to be looked up
+        if (count == 0 && !accountRepository.existsById(accountId)){
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves one page of the messages posted by a specific user, newest first.
+     *
+     * @param accountId The unique identifier for the account whose messages are to be retrieved.
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws AccountNotFoundException If the account does not exist.
+     * @throws InvalidPageException If the limit is out of range or the cursor is invalid.
      */
-    public List<Message> getAllMessagesFromUser(int accountId){
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesPageFromUser(int accountId, Integer limit, String after) throws AccountNotFoundException, InvalidPageException {
+        int pageSize = validatePageSize(limit);
         // Ensure the account associated with the provided accountId exists
         if (!accountRepository.existsById(accountId)){
-            throw new IllegalArgumentException("The account does not exist.");
+            throw new AccountNotFoundException("The account does not exist.");
+        }
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<MessageView> messages;
+        if (after == null) {
+            messages = messageStore.findFirstPageByAccountId(accountId, pageable);
+        } else {
+            MessageCursor cursor = MessageCursor.decode(after);
+            messages = messageStore.findPageByAccountIdAfter(accountId, cursor.getTimePostedEpoch(), cursor.getMessageId(), pageable);
+        }
+        return toPage(messages, pageSize);
+    }
+
+    /**
+     * Retrieves one page of the messages with a hashtag, newest first.
+     *
+     * The messages are read from the hashtag index, ordered like the timelines, so a page costs
+     * the same to read however many messages there are.
+     *
+     * @param tag the hashtag, with or without its leading '#'. It is matched case-insensitively.
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws InvalidPageException If the limit is out of range or the cursor is invalid.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getTaggedMessagesPage(String tag, Integer limit, String after) throws InvalidPageException {
+        return getTagPage(MessageTags.hashtag(tag), validatePageSize(limit), after);
+    }
+
+    /**
+     * Retrieves one page of the messages mentioning an account, newest first.
+     *
+     * An account whose username no mention can name in full has no mentions.
+     *
+     * @param accountId The unique identifier for the mentioned account.
+     * @param limit the maximum number of messages on the page, or null for the default page size
+     * @param after the opaque cursor returned with the previous page, or null for the first page
+     * @return the page of messages along with the cursor for the next page, if any
+     * @throws AccountNotFoundException If the account does not exist.
+     * @throws InvalidPageException If the limit is out of range or the cursor is invalid.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getMentionsPage(int accountId, Integer limit, String after) throws AccountNotFoundException, InvalidPageException {
+        int pageSize = validatePageSize(limit);
+        // Mentions are stored by username
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new AccountNotFoundException("The account does not exist."));
+        // A mention of this username would be stored cut short, under another account's name
+        if (!MessageTags.isMentionable(account.getUsername())) {
+            return new MessagePage(List.of(), null);
+        }
+        return getTagPage(MessageTags.mention(account.getUsername()), pageSize, after);
+    }
+
+    private MessagePage getTagPage(String tag, int pageSize, String after) throws InvalidPageException {
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<MessageView> messages;
+        if (after == null) {
+            messages = messageStore.findFirstPageByTag(tag, pageable);
+        } else {
+            MessageCursor cursor = MessageCursor.decode(after);
+            messages = messageStore.findPageByTagAfter(tag, cursor.getTimePostedEpoch(), cursor.getMessageId(), pageable);
+        }
+        return toPage(messages, pageSize);
+    }
+
+    static void validateMessageText(String messageText) throws InvalidMessageException {
+        if (messageText == null || 
+            messageText.isBlank() || 
+            messageText.isEmpty() ||
+            messageText.length() > 255){
+            throw new InvalidMessageException("Message cannot be blank or over 255 characters.");
+        }
+    }
+
+    /**
+     * Messages are paged by (timePostedEpoch, messageId), and a seek on that position never
+     * matches a message without a post time, so a message posted without one is given the
+     * current time, in epoch seconds.
+     */
+    static void defaultTimePosted(Message message) {
+        if (message.getTimePostedEpoch() == null) {
+            message.setTimePostedEpoch(Instant.now().getEpochSecond());
+        }
+    }
+
+    /**
+     * Validates an optional [since, until) time range.
+     * 
+     * @param since the optional earliest timePostedEpoch to include
+     * @param until the optional timePostedEpoch at which to stop (exclusive)
+     * @throws InvalidTimeRangeException if both bounds are provided and since is not before until
+     */
+    public void validateTimeRange(Long since, Long until) throws InvalidTimeRangeException {
+        if (since != null && until != null && since >= until) {
+            throw new InvalidTimeRangeException("Invalid time range. since must be before until.");
+        }
+    }
+
+    static int validatePageSize(Integer limit) throws InvalidPageException {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPageException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return limit;
+    }
+
+    static MessagePage toPage(List<MessageView> messages, int pageSize) {
+        // The extra row only signals that another page exists, it is not returned
+        if (messages.size() <= pageSize) {
+            return new MessagePage(messages, null);
         }
-        return messageRepository.findAllMessagesByAccountId(accountId);
+        List<MessageView> page = messages.subList(0, pageSize);
+        return new MessagePage(page, MessageCursor.of(page.get(pageSize - 1)));
     }
 }
@@ -0,0 +1,66 @@
+package com.example.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.example.entity.Account;
+import com.example.exception.InvalidAccountException;
+import com.example.exception.InvalidLoginException;
+import com.example.exception.UsernameExistsException;
+import com.example.repository.ReactiveAccountRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of AccountService, used by the reactive profile.
+ *
+ * Registration and login follow the same rules and report the same errors as AccountService.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAccountService {
+
+    private final ReactiveAccountRepository accountRepository;
+
+    public ReactiveAccountService(ReactiveAccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Registers a new user account.
+     *
+     * A valid account is inserted directly and the unique index on account.username rejects
+     * taken usernames. An invalid account is checked against the existing usernames first, so
+     * a taken username is reported before a blank username or a short password, as in AccountService.
+     *
+     * @param newAccount the Account object containing the user's registration details.
+     * @return a Mono with the persisted Account, or a UsernameExistsException or InvalidAccountException error.
+     */
+    public Mono<Account> register(Account newAccount) {
+        String invalid = newAccount.getUsername().isBlank() ? "Username cannot be blank"
+            : newAccount.getPassword().length() < 4 ? "Password needs to be at least 4 characters long"
+            : null;
+        if (invalid != null) {
+            return accountRepository.existsByUsername(newAccount.getUsername())
+                .flatMap(exists -> Mono.error(exists
+                    ? new UsernameExistsException(AccountService.USERNAME_EXISTS_MESSAGE)
+                    : new InvalidAccountException(invalid)));
+        }
+        return accountRepository.insert(newAccount.getUsername(), newAccount.getPassword())
+            .onErrorMap(DataIntegrityViolationException.class,
+                e -> new UsernameExistsException(AccountService.USERNAME_EXISTS_MESSAGE));
+    }
+
+    /**
+     * Logs a user into their account by validating their credentials.
+     *
+     * @param username the username entered by the user.
+     * @param password the password entered by the user.
+     * @return a Mono with the matching Account, or an InvalidLoginException error.
+     */
+    public Mono<Account> login(String username, String password) {
+        return accountRepository.findByUsernameAndPassword(username, password)
+            .switchIfEmpty(Mono.error(() -> new InvalidLoginException("Invalid username or password.")));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+import com.example.exception.AccountNotFoundException;
+import com.example.exception.InvalidMessageException;
+import com.example.exception.MessageNotFoundException;
+import com.example.repository.ReactiveAccountRepository;
+import com.example.repository.ReactiveMessageRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of MessageService, used by the reactive profile.
+ *
+ * Messages are validated with the same rules and the same errors as MessageService. Lists
+ * of messages are returned as a Flux that emits rows as the database produces them, so the
+ * subscriber's demand (backpressure) decides how fast they are read.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveMessageService {
+
+    private final ReactiveMessageRepository messageRepository;
+    private final ReactiveAccountRepository accountRepository;
+
+    public ReactiveMessageService(ReactiveMessageRepository messageRepository, ReactiveAccountRepository accountRepository) {
+        this.messageRepository = messageRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Creates a new message after checking that its account exists and its text is valid.
+     *
+     * @param newMessage the Message object to be created.
+     * @return a Mono with the persisted message, or an AccountNotFoundException or InvalidMessageException error.
+     */
+    public Mono<MessageView> createMessage(Message newMessage) {
+        int postedBy = newMessage.getPostedBy() == null ? 0 : newMessage.getPostedBy();
+        return accountRepository.existsById(postedBy)
+            .flatMap(exists -> {
+                if (!exists) {
+                    return Mono.error(new AccountNotFoundException("The account does not exist."));
+                }
+                MessageService.validateMessageText(newMessage.getMessageText());
+                MessageService.defaultTimePosted(newMessage);
+                return messageRepository.insert(postedBy, newMessage.getMessageText(), newMessage.getTimePostedEpoch());
+            });
+    }
+
+    /**
+     * @return a Flux of all messages in message ID order.
+     */
+    public Flux<MessageView> getAllMessages() {
+        return messageRepository.findAll();
+    }
+
+    /**
+     * @param id the ID of the message to retrieve.
+     * @return a Mono with the message, or an empty Mono if it does not exist.
+     */
+    public Mono<MessageView> getMessageById(int id) {
+        return messageRepository.findById(id);
+    }
+
+    /**
+     * @param id the ID of the message to delete.
+     * @return a Mono with the number of deleted rows (0 or 1).
+     */
+    public Mono<Integer> deleteMessageById(int id) {
+        return messageRepository.deleteById(id);
+    }
+
+    /**
+     * Updates the text of an existing message.
+     *
+     * @param id the ID of the message to update.
+     * @param messageText the new text of the message.
+     * @return a Mono with the number of updated rows (1), or an InvalidMessageException or
+     *         MessageNotFoundException error.
+     */
+    public Mono<Integer> updateMessage(int id, String messageText) {
+        try {
+            MessageService.validateMessageText(messageText);
+        } catch (InvalidMessageException e) {
+            return Mono.error(e);
+        }
+        return messageRepository.updateText(id, messageText)
+            .flatMap(rows -> rows == 0
+                ? Mono.error(new MessageNotFoundException("The message does not exist."))
+                : Mono.just(rows));
+    }
+
+    /**
+     * Retrieves all messages posted by an existing account, newest first.
+     *
+     * @param accountId the ID of the account whose messages are to be retrieved.
+     * @return a Flux of the account's messages, or an AccountNotFoundException error.
+     */
+    public Flux<MessageView> getAllMessagesFromUser(int accountId) {
+        return accountRepository.existsById(accountId)
+            .flatMapMany(exists -> exists
+                ? messageRepository.findAllByAccountId(accountId)
+                : Flux.error(new AccountNotFoundException("The account does not exist.")));
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.stream;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.dto.MessageEvent;
+
+/**
+ * Fans out message events to the clients of GET /messages/stream.
+ *
+ * Published events are numbered and written to a fixed-size ring buffer without locking; the
+ * number is the SSE event ID. Every client has a cursor into the ring and is sent the events
+ * after it by one of app.stream.dispatcher-threads dispatcher threads, so a publisher never
+ * waits for a client. A send to a client that stops reading blocks its dispatcher thread until
+ * the socket write times out after server.tomcat.connection-timeout, which fails the stream. A client that
+ * reconnects with a Last-Event-ID still in the ring is sent the events it missed from the
+ * ring, without reading the database.
+ *
+ * A client that falls more than the ring's capacity behind is dropped: its stream is
+ * completed with an error by the publisher, or by the send in progress once it returns, and
+ * it has to reconnect. A client asking for events that are no longer in the
+ * ring is sent a reset event, after which it should reload what it shows.
+ */
+@Component
+@Profile("!reactive")
+public class MessageEventStream {
+
+    /** Event sent to a client whose Last-Event-ID is no longer in the ring buffer */
+    public static final String RESET = "reset";
+
+    private static class Entry {
+        private final long sequence;
+        private final MessageEvent event;
+
+        Entry(long sequence, MessageEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    /** Sequence number of the last published event; events are numbered from 1 */
+    private final AtomicLong published = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final long timeoutMillis;
+
+    public MessageEventStream(@Value("${app.stream.backlog:4096}") int backlog,
+                              @Value("${app.stream.timeout:30m}") Duration timeout,
+                              @Value("${app.stream.dispatcher-threads:8}") int dispatcherThreads) {
+        if (backlog <= 0 || Integer.bitCount(backlog) != 1) {
+            throw new IllegalStateException("app.stream.backlog must be a power of two, but was " + backlog);
+        }
+        this.ring = new AtomicReferenceArray<>(backlog);
+        this.mask = backlog - 1;
+        this.timeoutMillis = timeout.toMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        // At most one task per client is queued, so the queue is bounded by the number of clients
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, task -> {
+            Thread thread = new Thread(task, "message-stream-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publishes an event to every client. Never blocks.
+     *
+     * @param event the event to publish
+     */
+    public void publish(MessageEvent event) {
+        long sequence = published.incrementAndGet();
+        ring.set((int) (sequence & mask), new Entry(sequence, event));
+        for (Subscriber subscriber : subscribers) {
+            if (sequence - subscriber.cursor > ring.length()) {
+                subscriber.drop(new IllegalStateException("Stream client fell more than " + ring.length() + " events behind"));
+            } else {
+                subscriber.schedule();
+            }
+        }
+    }
+
+    /**
+     * Opens a stream of events for a client.
+     *
+     * @param postedBy the optional account ID to send the events of, or null for all events
+     * @param lastEventId the optional ID of the last event the client received, or null to only send new events
+     * @return the SseEmitter the events are sent through
+     */
+    public SseEmitter subscribe(Integer postedBy, Long lastEventId) throws IOException {
+        long head = published.get();
+        boolean reset = false;
+        long cursor = head;
+        if (lastEventId != null) {
+            // The oldest event still in the ring is head - capacity + 1
+            reset = lastEventId > head || lastEventId < head - ring.length();
+            cursor = reset ? head : lastEventId;
+        }
+        Subscriber subscriber = new Subscriber(postedBy, cursor);
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(subscriber::ended);
+        emitter.onTimeout(subscriber::ended);
+        emitter.onError(error -> subscriber.ended());
+
+        // Sends the response headers straight away, before there is an event to send
+        emitter.send(SseEmitter.event().comment("stream"));
+        if (reset) {
+            emitter.send(SseEmitter.event().id(String.valueOf(head)).name(RESET).data(""));
+        }
+        return emitter;
+    }
+
+    /**
+     * @return the number of connected clients
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ends every stream while the web server is still running, so clients see a clean end of stream.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void completeStreams() {
+        subscribers.forEach(subscriber -> subscriber.drop(null));
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+    }
+
+    private class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Integer postedBy;
+        /** Sequence number of the last event this client has been sent */
+        private volatile long cursor;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /** Held for every send, for completing the stream, and while the container ends it */
+        private final ReentrantLock sending = new ReentrantLock();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean dropped;
+        /** Why the client was dropped, or null to complete its stream normally */
+        private volatile Throwable dropCause;
+
+        Subscriber(Integer postedBy, long cursor) {
+            this.emitter = new SseEmitter(timeoutMillis) {
+                @Override
+                protected void extendResponse(ServerHttpResponse outputMessage) {
+                    super.extendResponse(outputMessage);
+                    start();
+                }
+            };
+            this.postedBy = postedBy;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Starts sending events once Spring MVC starts the response. Events sent before then are
+         * buffered in the emitter and written by the servlet container thread, which would wait
+         * for a client that does not read, and a write failing there never ends the stream.
+         */
+        private void start() {
+            subscribers.add(this);
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        /**
+         * Stops sending events to this client and completes its stream straight away, unless a
+         * send is in progress: the emitter is locked while sending, so the stream is then
+         * completed by the dispatcher task once the send returns or times out, and the
+         * publisher does not wait for it.
+         *
+         * @param cause why the client is dropped, or null to complete its stream normally
+         */
+        void drop(Throwable cause) {
+            dropCause = cause;
+            dropped = true;
+            subscribers.remove(this);
+            if (sending.tryLock()) {
+                try {
+                    complete(cause);
+                } finally {
+                    sending.unlock();
+                }
+            }
+        }
+
+        /**
+         * Called by the servlet container when the stream has ended, for example after a send
+         * failed. The container recycles the response once this returns, and a send still
+         * writing to it would write into the response of the next request on that object, so
+         * this waits for a send in progress to return.
+         */
+        void ended() {
+            sending.lock();
+            try {
+                dropped = true;
+                completed.set(true);
+                subscribers.remove(this);
+            } finally {
+                sending.unlock();
+            }
+        }
+
+        private void complete(Throwable cause) {
+            if (completed.compareAndSet(false, true)) {
+                if (cause == null) {
+                    emitter.complete();
+                } else {
+                    emitter.completeWithError(cause);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    sendPending();
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(this);
+                    complete(e);
+                    return;
+                }
+                if (dropped) {
+                    complete(dropCause);
+                    return;
+                }
+                scheduled.set(false);
+            } while (hasPending() && scheduled.compareAndSet(false, true));
+        }
+
+        private void sendPending() throws IOException {
+            long next = cursor + 1;
+            while (!dropped) {
+                Entry entry = ring.get((int) (next & mask));
+                if (entry == null || entry.sequence < next) {
+                    // Not published yet; the publisher schedules another drain once it is
+                    return;
+                }
+                if (entry.sequence > next) {
+                    // Overwritten before it could be sent
+                    dropCause = new IllegalStateException("Stream client fell more than " + ring.length() + " events behind");
+                    dropped = true;
+                    subscribers.remove(this);
+                    return;
+                }
+                MessageEvent event = entry.event;
+                if (postedBy == null || postedBy.equals(event.getPostedBy())) {
+                    send(SseEmitter.event().id(String.valueOf(next)).name(event.getType())
+                        .data(event, MediaType.APPLICATION_JSON));
+                }
+                cursor = next++;
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sending.lock();
+            try {
+                if (dropped) {
+                    return;
+                }
+                emitter.send(event);
+            } finally {
+                sending.unlock();
+            }
+        }
+
+        private boolean hasPending() {
+            long next = cursor + 1;
+            Entry entry = ring.get((int) (next & mask));
+            return dropped || (entry != null && entry.sequence >= next);
+        }
+    }
+}
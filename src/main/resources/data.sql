@@ -1,3 +1,5 @@
+drop table if exists follow;
+drop table if exists message_tag;
 drop table if exists message;
 drop table if exists account;
 create table account (
@@ -9,9 +11,41 @@ create table message (
     messageId int primary key auto_increment,
     postedBy int,
     messageText varchar(255),
-    timePostedEpoch bigint,
+    timePostedEpoch bigint not null,
     foreign key (postedBy) references account(accountId)
 );
+-- Per-user timeline: seek on postedBy and read newest first without a sort.
+-- messageText is included so the timeline is read from the index alone.
+create index idx_message_postedby_time on message (postedBy, timePostedEpoch desc, messageId desc, messageText);
+-- Global feed: newest first across all accounts
+create index idx_message_time on message (timePostedEpoch desc, messageId desc);
+-- Time-range reads go oldest first; H2 cannot scan the descending indexes backwards,
+-- so the ranges have ascending indexes of their own.
+create index idx_message_postedby_time_asc on message (postedBy, timePostedEpoch, messageId, messageText);
+create index idx_message_time_asc on message (timePostedEpoch, messageId);
+-- Hashtags ('#spring') and mentions ('@testuser1') extracted from message text.
+-- The post time is copied here so a tag's messages are read newest first from the index alone,
+-- and the rows of a message are deleted with it.
+create table message_tag (
+    tag varchar(255) not null,
+    messageId int not null,
+    timePostedEpoch bigint not null,
+    primary key (tag, messageId),
+    foreign key (messageId) references message(messageId) on delete cascade
+);
+create index idx_message_tag_time on message_tag (tag, timePostedEpoch desc, messageId desc);
+-- Used by the cascade when a message is deleted
+create index idx_message_tag_message on message_tag (messageId);
+-- Follow graph: followerId follows followeeId
+create table follow (
+    followerId int not null,
+    followeeId int not null,
+    primary key (followerId, followeeId),
+    foreign key (followerId) references account(accountId) on delete cascade,
+    foreign key (followeeId) references account(accountId) on delete cascade
+);
+-- Fan-out on write: the followers of the author of a new message
+create index idx_follow_followee on follow (followeeId, followerId);
 
 -- Starting test values with ids of 9999 to avoid test issues
 insert into account values (9999, 'testuser1', 'password');
@@ -0,0 +1,27 @@
+-- Schema of each message shard when app.sharding.enabled=true.
+-- The accounts stay in the main database, so postedBy has no foreign key here.
+drop table if exists message_tag;
+drop table if exists message;
+drop sequence if exists message_seq;
+create table message (
+    messageId int primary key,
+    postedBy int not null,
+    messageText varchar(255),
+    timePostedEpoch bigint not null
+);
+create index idx_message_postedby_time on message (postedBy, timePostedEpoch desc, messageId desc, messageText);
+create index idx_message_time on message (timePostedEpoch desc, messageId desc);
+create index idx_message_postedby_time_asc on message (postedBy, timePostedEpoch, messageId, messageText);
+create index idx_message_time_asc on message (timePostedEpoch, messageId);
+-- Hashtags and mentions of the messages in this shard
+create table message_tag (
+    tag varchar(255) not null,
+    messageId int not null,
+    timePostedEpoch bigint not null,
+    primary key (tag, messageId),
+    foreign key (messageId) references message(messageId) on delete cascade
+);
+create index idx_message_tag_time on message_tag (tag, timePostedEpoch desc, messageId desc);
+create index idx_message_tag_message on message_tag (messageId);
+-- Shard-local message number; the global message ID is built from it and the shard number
+create sequence message_seq start with 1;
@@ -0,0 +1,93 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class AccountCacheTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    Statistics statistics;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        statistics = app.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Logging in twice with the same credentials should answer the second lookup from the query cache.
+     * The cached lookup is by username only, so a wrong password hits it too and is still rejected.
+     */
+    @Test
+    public void loginServedFromQueryCache() throws IOException, InterruptedException {
+        String json = "{\"username\":\"testuser1\",\"password\":\"password\"}";
+        Assertions.assertEquals(200, post("http://localhost:8080/login", json).statusCode());
+        long hits = statistics.getQueryCacheHitCount();
+        Assertions.assertEquals(200, post("http://localhost:8080/login", json).statusCode());
+        Assertions.assertEquals(hits + 1, statistics.getQueryCacheHitCount(), "Expected the second login to hit the query cache");
+
+        String wrongPassword = "{\"username\":\"testuser1\",\"password\":\"pass404\"}";
+        Assertions.assertEquals(401, post("http://localhost:8080/login", wrongPassword).statusCode());
+        Assertions.assertEquals(hits + 2, statistics.getQueryCacheHitCount(), "Expected the wrong password to hit the same cached lookup");
+    }
+
+    /**
+     * Posting twice for the same account should check the account from the query cache the second time.
+     */
+    @Test
+    public void createMessageAccountCheckServedFromQueryCache() throws IOException, InterruptedException {
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        Assertions.assertEquals(200, post("http://localhost:8080/messages", json).statusCode());
+        long hits = statistics.getQueryCacheHitCount();
+        Assertions.assertEquals(200, post("http://localhost:8080/messages", json).statusCode());
+        Assertions.assertEquals(hits + 1, statistics.getQueryCacheHitCount(), "Expected the account check to hit the query cache");
+    }
+
+    /**
+     * Registering an account should discard cached query results, so a new account can log in at once.
+     */
+    @Test
+    public void registerInvalidatesQueryCache() throws IOException, InterruptedException {
+        String json = "{\"username\":\"user\",\"password\":\"password\"}";
+        Assertions.assertEquals(401, post("http://localhost:8080/login", json).statusCode());
+        Assertions.assertEquals(200, post("http://localhost:8080/register", json).statusCode());
+        Assertions.assertEquals(200, post("http://localhost:8080/login", json).statusCode());
+    }
+
+    private HttpResponse<String> post(String uri, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CreateMessageBatchTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with a mix of valid and invalid messages
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: one result per message, 200 with the created message or 400 with the error
+     */
+    @Test
+    public void createMessageBatchMixedResults() throws IOException, InterruptedException {
+    	String json = "[{\"postedBy\":9999,\"messageText\": \"first\",\"timePostedEpoch\": 1669947792},"
+    			+ "{\"postedBy\":5050,\"messageText\": \"unknown account\",\"timePostedEpoch\": 1669947792},"
+    			+ "{\"postedBy\":9998,\"messageText\": \"\",\"timePostedEpoch\": 1669947792},"
+    			+ "{\"postedBy\":9998,\"messageText\": \"second\",\"timePostedEpoch\": 1669947793}]";
+        HttpResponse<String> response = postBatch(json);
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<JsonNode> results = objectMapper.readValue(response.body(), new TypeReference<List<JsonNode>>(){});
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals(200, results.get(0).get("status").asInt());
+        Assertions.assertEquals(400, results.get(1).get("status").asInt());
+        Assertions.assertEquals("The account does not exist.", results.get(1).get("error").asText());
+        Assertions.assertEquals(400, results.get(2).get("status").asInt());
+        Assertions.assertEquals(200, results.get(3).get("status").asInt());
+        Message first = objectMapper.treeToValue(results.get(0).get("message"), Message.class);
+        Message second = objectMapper.treeToValue(results.get(3).get("message"), Message.class);
+        Assertions.assertEquals(new Message(1, 9999, "first", 1669947792L), first);
+        Assertions.assertEquals(new Message(2, 9998, "second", 1669947793L), second);
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages"))
+                .build();
+        List<Message> persisted = objectMapper.readValue(webClient.send(getRequest, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(List.of(second), persisted, "Expected=" + second + ", Actual=" + persisted);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with an empty array
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void createMessageBatchEmpty() throws IOException, InterruptedException {
+        HttpResponse<String> response = postBatch("[]");
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch where no message has a postedBy
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a 400 result for every message
+     */
+    @Test
+    public void createMessageBatchWithoutPostedBy() throws IOException, InterruptedException {
+    	String json = "[{\"messageText\": \"first\",\"timePostedEpoch\": 1669947792},"
+    			+ "{\"messageText\": \"second\",\"timePostedEpoch\": 1669947793}]";
+        HttpResponse<String> response = postBatch(json);
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<JsonNode> results = objectMapper.readValue(response.body(), new TypeReference<List<JsonNode>>(){});
+        Assertions.assertEquals(2, results.size());
+        for (JsonNode result : results) {
+            Assertions.assertEquals(400, result.get("status").asInt());
+            Assertions.assertEquals("The account does not exist.", result.get("error").asText());
+        }
+    }
+
+    private HttpResponse<String> postBatch(String json) throws IOException, InterruptedException {
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+    }
+}
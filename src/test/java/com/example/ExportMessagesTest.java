@@ -0,0 +1,117 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ExportMessagesTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/export
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Content-Type: application/x-ndjson
+     *  Response Body: one JSON message per line, in message ID order
+     */
+    @Test
+    public void exportAllMessages() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("http://localhost:8080/messages/export");
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        expectedResult.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult = readLines(response.body());
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/export filtered by postedBy and time range
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: only the matching messages
+     */
+    @Test
+    public void exportMessagesFiltered() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("http://localhost:8080/messages/export?postedBy=9999&since=1669947792&until=1669947793");
+        Assertions.assertEquals(200, response.statusCode());
+        List<Message> expectedResult = List.of(new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult = readLines(response.body());
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+
+        HttpResponse<String> emptyResponse = get("http://localhost:8080/messages/export?since=1669947793");
+        Assertions.assertEquals(200, emptyResponse.statusCode());
+        Assertions.assertTrue(readLines(emptyResponse.body()).isEmpty(), "Expected Empty Result, but Result was not Empty");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/export with since after until
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void exportMessagesInvalidTimeRange() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("http://localhost:8080/messages/export?since=20&until=10");
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> readLines(String body) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                messages.add(objectMapper.readValue(line, Message.class));
+            }
+        }
+        return messages;
+    }
+}
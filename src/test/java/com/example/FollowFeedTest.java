@@ -0,0 +1,249 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.HomeTimelineCache;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class FollowFeedTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper. Each test starts the app itself
+     * with the feed settings it needs.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private void startApp(String... args) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    /**
+     * Follows two accounts through POST localhost:8080/accounts/9999/following/{followeeId} and
+     * reads GET localhost:8080/accounts/9999/feed, then unfollows one of them.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: 1 for a new follow, empty when already followed; the feed holds the
+     *  followed accounts' messages newest first, and only theirs
+     */
+    @Test
+    public void feedHoldsFollowedAccountsNewestFirst() throws IOException, InterruptedException {
+        startApp();
+        Assertions.assertEquals("[]", get("http://localhost:8080/accounts/9999/feed").body());
+
+        Assertions.assertEquals("1", follow(9999, 9997).body());
+        Assertions.assertEquals("", follow(9999, 9997).body());
+        Assertions.assertEquals("1", follow(9999, 9996).body());
+
+        Assertions.assertEquals(List.of("test message 2", "test message 3"), texts(get("http://localhost:8080/accounts/9999/feed")));
+
+        Assertions.assertEquals("1", unfollow(9999, 9996).body());
+        Assertions.assertEquals("", unfollow(9999, 9996).body());
+        Assertions.assertEquals(List.of("test message 2"), texts(get("http://localhost:8080/accounts/9999/feed")));
+    }
+
+    /**
+     * Posts and deletes a message of a followed account once the follower's feed has been read,
+     * so the message is fanned out to and removed from the cached home timeline.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the new message first in the feed, then gone once deleted
+     */
+    @Test
+    public void newMessagesFannedOutToFollowers() throws IOException, InterruptedException {
+        startApp();
+        follow(9998, 9997);
+        Assertions.assertEquals(List.of("test message 2"), texts(get("http://localhost:8080/accounts/9998/feed")));
+
+        Message message = post("{\"postedBy\":9997,\"messageText\": \"fanned out\",\"timePostedEpoch\": 1669947800}");
+        Assertions.assertEquals(List.of("fanned out", "test message 2"), texts(get("http://localhost:8080/accounts/9998/feed")));
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + message.getMessageId()))
+                .DELETE()
+                .build();
+        Assertions.assertEquals(200, webClient.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(List.of("test message 2"), texts(get("http://localhost:8080/accounts/9998/feed")));
+    }
+
+    /**
+     * Pages through a feed longer than the home timeline kept in memory, with
+     * GET localhost:8080/accounts/9998/feed?limit=2
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: every message of the followed accounts exactly once, newest first,
+     *  including the ones older than the home timeline holds
+     *  Headers: X-Next-Cursor on every page but the last
+     */
+    @Test
+    public void feedPagesReachPastHomeTimeline() throws IOException, InterruptedException {
+        startApp("--app.feed.timeline-size=3");
+        follow(9998, 9999);
+        follow(9998, 9997);
+        for (int i = 1; i <= 4; i++) {
+            post("{\"postedBy\":" + (i % 2 == 0 ? 9999 : 9997) + ",\"messageText\": \"feed " + i + "\",\"timePostedEpoch\": " + (1669947800 + i) + "}");
+        }
+
+        List<String> feed = new ArrayList<>();
+        String uri = "http://localhost:8080/accounts/9998/feed?limit=2";
+        for (int pages = 0; pages < 10; pages++) {
+            HttpResponse<String> response = get(uri);
+            List<String> page = texts(response);
+            Assertions.assertTrue(page.size() <= 2);
+            feed.addAll(page);
+            Optional<String> cursor = response.headers().firstValue("X-Next-Cursor");
+            if (cursor.isEmpty()) {
+                break;
+            }
+            uri = "http://localhost:8080/accounts/9998/feed?limit=2&after=" + cursor.get();
+        }
+        Assertions.assertEquals(List.of("feed 4", "feed 3", "feed 2", "feed 1", "test message 1", "test message 2"), feed);
+    }
+
+    /**
+     * With a fan-out threshold of 2, an account with two followers is read at read time instead
+     * of being fanned out to its followers' home timelines.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the feeds of both followers hold the new message
+     */
+    @Test
+    public void highFollowerAccountsReadAtReadTime() throws IOException, InterruptedException {
+        startApp("--app.feed.fan-out-threshold=2");
+        follow(9998, 9999);
+        Assertions.assertEquals(List.of("test message 1"), texts(get("http://localhost:8080/accounts/9998/feed")));
+        follow(9997, 9999);
+        follow(9997, 9996);
+        Assertions.assertEquals(List.of("test message 1", "test message 3"), texts(get("http://localhost:8080/accounts/9997/feed")));
+
+        post("{\"postedBy\":9999,\"messageText\": \"pulled\",\"timePostedEpoch\": 1669947800}");
+        Assertions.assertEquals(List.of("pulled", "test message 1"), texts(get("http://localhost:8080/accounts/9998/feed")));
+        Assertions.assertEquals(List.of("pulled", "test message 1", "test message 3"), texts(get("http://localhost:8080/accounts/9997/feed")));
+
+        // Back under the threshold, 9999 is fanned out to again
+        unfollow(9997, 9999);
+        Assertions.assertEquals(List.of("pulled", "test message 1"), texts(get("http://localhost:8080/accounts/9998/feed")));
+        post("{\"postedBy\":9999,\"messageText\": \"pushed\",\"timePostedEpoch\": 1669947801}");
+        Assertions.assertEquals(List.of("pushed", "pulled", "test message 1"), texts(get("http://localhost:8080/accounts/9998/feed")));
+    }
+
+    /**
+     * An account cannot follow itself or an account that does not exist, and the feed of an
+     * account that does not exist cannot be read.
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void invalidFollowsRejected() throws IOException, InterruptedException {
+        startApp();
+        Assertions.assertEquals(400, follow(9999, 9999).statusCode());
+        Assertions.assertEquals(400, follow(9999, 5050).statusCode());
+        Assertions.assertEquals(400, follow(5050, 9999).statusCode());
+        Assertions.assertEquals(400, unfollow(9999, 9999).statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/accounts/5050/feed").statusCode());
+    }
+
+    /**
+     * With room for four messages in all, a home timeline that grows past it through fan-out is
+     * evicted, and rebuilt from the database on the next read.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: every message of the followed accounts, newest first
+     */
+    @Test
+    public void homeTimelinesBoundedByMessages() throws IOException, InterruptedException {
+        startApp("--app.feed.maximum-messages=4");
+        HomeTimelineCache homeTimelineCache = app.getBean(HomeTimelineCache.class);
+        follow(9998, 9999);
+        follow(9998, 9997);
+        Assertions.assertEquals(List.of("test message 1", "test message 2"), texts(get("http://localhost:8080/accounts/9998/feed")));
+
+        for (int i = 1; i <= 3; i++) {
+            post("{\"postedBy\":9999,\"messageText\": \"feed " + i + "\",\"timePostedEpoch\": " + (1669947800 + i) + "}");
+        }
+        for (int waits = 0; waits < 50 && homeTimelineCache.getEvictionCount() == 0; waits++) {
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(1, homeTimelineCache.getEvictionCount(), "Expected the grown home timeline to be evicted");
+        Assertions.assertEquals(List.of("feed 3", "feed 2", "feed 1", "test message 1", "test message 2"),
+                texts(get("http://localhost:8080/accounts/9998/feed")));
+    }
+
+    private HttpResponse<String> follow(int accountId, int followeeId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/" + accountId + "/following/" + followeeId))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> unfollow(int accountId, int followeeId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/" + accountId + "/following/" + followeeId))
+                .DELETE()
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Message post(String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    private List<String> texts(HttpResponse<String> response) throws IOException {
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<String> texts = new ArrayList<>();
+        for (Message message : objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){})) {
+            texts.add(message.getMessageText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.MessageCache;
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageCacheTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    MessageCache messageCache;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        messageCache = app.getBean(MessageCache.class);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Reading the same message twice should load it once and serve the second read from the cache.
+     */
+    @Test
+    public void getMessageByIdServedFromCache() throws IOException, InterruptedException {
+        long misses = messageCache.getMissCount();
+        long hits = messageCache.getHitCount();
+        getMessage(9999);
+        getMessage(9999);
+        Assertions.assertEquals(misses + 1, messageCache.getMissCount(), "Expected one cache miss");
+        Assertions.assertEquals(hits + 1, messageCache.getHitCount(), "Expected one cache hit");
+    }
+
+    /**
+     * A cached message should be returned with its new text after a PATCH, and not at all after a DELETE.
+     */
+    @Test
+    public void getMessageByIdNotStaleAfterWrites() throws IOException, InterruptedException {
+        getMessage(9999);
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"text changed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Message expectedResult = new Message(9999, 9999, "text changed", 1669947792L);
+        Message actualResult = objectMapper.readValue(getMessage(9999).body(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = getMessage(9999);
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.body().isEmpty(), "Expected Empty Result, but Result was " + response.body());
+    }
+
+    private HttpResponse<String> getMessage(int messageId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + messageId))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageCountTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper. Each test starts the app itself
+     * with the reconcile interval it needs.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private void startApp(String... args) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    /**
+     * Reads the counts of the seeded messages through GET localhost:8080/messages/count and
+     * GET localhost:8080/accounts/{accountId}/messages/count
+     *
+     * Expected Response:
+     *  Status Code: 200, or 400 for an account that does not exist
+     *  Response Body: the number of messages, in total and per account
+     */
+    @Test
+    public void seededMessagesCounted() throws IOException, InterruptedException {
+        startApp();
+        Assertions.assertEquals("3", get("http://localhost:8080/messages/count").body());
+        Assertions.assertEquals("1", get("http://localhost:8080/accounts/9999/messages/count").body());
+        Assertions.assertEquals("0", get("http://localhost:8080/accounts/9998/messages/count").body());
+
+        HttpResponse<String> unknown = get("http://localhost:8080/accounts/5050/messages/count");
+        Assertions.assertEquals(400, unknown.statusCode(), "Expected Status Code 400 - Actual Code was: " + unknown.statusCode());
+    }
+
+    /**
+     * Creates messages one by one and in a batch, then deletes one.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: counts that follow every create and delete
+     */
+    @Test
+    public void countsFollowCreatesAndDeletes() throws IOException, InterruptedException {
+        startApp();
+        HttpRequest post = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9998,\"messageText\": \"counted\",\"timePostedEpoch\": 1669947800}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> created = webClient.send(post, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, created.statusCode());
+        Message message = objectMapper.readValue(created.body(), Message.class);
+
+        String json = "[{\"postedBy\":9998,\"messageText\": \"one\",\"timePostedEpoch\": 1000},"
+                + "{\"postedBy\":9999,\"messageText\": \"two\",\"timePostedEpoch\": 2000},"
+                + "{\"postedBy\":5050,\"messageText\": \"rejected\",\"timePostedEpoch\": 3000}]";
+        HttpRequest batch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(batch, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Assertions.assertEquals("6", get("http://localhost:8080/messages/count").body());
+        Assertions.assertEquals("2", get("http://localhost:8080/accounts/9998/messages/count").body());
+        Assertions.assertEquals("2", get("http://localhost:8080/accounts/9999/messages/count").body());
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + message.getMessageId()))
+                .DELETE()
+                .build();
+        Assertions.assertEquals(200, webClient.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(200, webClient.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Assertions.assertEquals("5", get("http://localhost:8080/messages/count").body());
+        Assertions.assertEquals("1", get("http://localhost:8080/accounts/9998/messages/count").body());
+    }
+
+    /**
+     * Inserts and deletes messages behind the application's back, and waits for the counters
+     * to be reconciled against the database.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the counts of the database once reconciled
+     */
+    @Test
+    public void countsReconciledWithDatabase() throws IOException, InterruptedException {
+        startApp("--app.counters.reconcile-interval=100ms");
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO message (messageId, postedBy, messageText, timePostedEpoch) VALUES (5000, 9998, 'direct', 1669947800)");
+        jdbcTemplate.update("DELETE FROM message WHERE messageId = 9999");
+
+        Thread.sleep(1000);
+        Assertions.assertEquals("3", get("http://localhost:8080/messages/count").body());
+        Assertions.assertEquals("1", get("http://localhost:8080/accounts/9998/messages/count").body());
+        Assertions.assertEquals("0", get("http://localhost:8080/accounts/9999/messages/count").body());
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.repository.MessageRepository;
+
+/**
+ * Reads the H2 query plans of the timeline and time-range queries to verify that they are
+ * served by the message indexes created in data.sql rather than by a full table scan and sort.
+ *
+ * The plans are read for the SQL that Hibernate generates from the repository's @Query
+ * methods, captured with a StatementInspector, so a change to a query is checked as well.
+ */
+public class MessageIndexTest {
+    ApplicationContext app;
+    JdbcTemplate jdbcTemplate;
+    MessageRepository messageRepository;
+
+    static final Pageable PAGE = PageRequest.of(0, 10);
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (statements) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        String[] args = new String[] {"--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + RecordingStatementInspector.class.getName()};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        jdbcTemplate = app.getBean(JdbcTemplate.class);
+        messageRepository = app.getBean(MessageRepository.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * The per-user timeline should seek on the (postedBy, timePostedEpoch, messageId) index
+     * and need no separate sort.
+     */
+    @Test
+    public void userTimelineUsesPostedByTimeIndex() {
+        String plan = explain(() -> messageRepository.findAllMessagesByAccountId(9999));
+        assertIndexSorted(plan, "IDX_MESSAGE_POSTEDBY_TIME");
+        plan = explain(() -> messageRepository.findFirstPageByAccountId(9999, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_POSTEDBY_TIME");
+    }
+
+    /**
+     * A per-user timeline page seeking past a cursor should use the same index.
+     */
+    @Test
+    public void userTimelinePageUsesPostedByTimeIndex() {
+        String plan = explain(() -> messageRepository.findPageByAccountIdAfter(9999, 1669947792L, 9999, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_POSTEDBY_TIME");
+    }
+
+    /**
+     * The global feed should read the time index in order instead of sorting the whole table.
+     */
+    @Test
+    public void globalFeedUsesTimeIndex() {
+        String plan = explain(() -> messageRepository.findFirstPage(PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_TIME");
+    }
+
+    /**
+     * A global feed page seeking past a cursor should start the time index scan at the cursor.
+     */
+    @Test
+    public void globalFeedPageUsesTimeIndex() {
+        String plan = explain(() -> messageRepository.findPageAfter(1669947792L, 9999, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_TIME");
+        Assertions.assertTrue(plan.contains("IDX_MESSAGE_TIME: TIMEPOSTEDEPOCH <="), "Expected an index range scan, plan was: " + plan);
+    }
+
+    /**
+     * The time-range queries read oldest first, so they should scan the ascending time index
+     * in order from the start of the range, with or without a cursor.
+     */
+    @Test
+    public void timeRangeUsesAscendingTimeIndex() {
+        String plan = explain(() -> messageRepository.findByTimeRange(1000L, 2000L, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_TIME_ASC");
+        Assertions.assertTrue(plan.contains("IDX_MESSAGE_TIME_ASC: TIMEPOSTEDEPOCH >="), "Expected an index range scan, plan was: " + plan);
+        plan = explain(() -> messageRepository.findByTimeRangeAfter(1000L, 2000L, 1500L, 9999, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_TIME_ASC");
+    }
+
+    /**
+     * The time-range queries of one account should scan the ascending (postedBy, timePostedEpoch) index in order.
+     */
+    @Test
+    public void userTimeRangeUsesAscendingPostedByTimeIndex() {
+        String plan = explain(() -> messageRepository.findByAccountIdAndTimeRange(9999, 1000L, 2000L, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_POSTEDBY_TIME_ASC");
+        plan = explain(() -> messageRepository.findByAccountIdAndTimeRangeAfter(9999, 1000L, 2000L, 1500L, 9999, PAGE));
+        assertIndexSorted(plan, "IDX_MESSAGE_POSTEDBY_TIME_ASC");
+    }
+
+    private static void assertIndexSorted(String plan, String index) {
+        Assertions.assertTrue(plan.contains(index + ":") || plan.contains(index + " */"),
+            "Expected " + index + " to be used, plan was: " + plan);
+        Assertions.assertTrue(plan.contains("index sorted"), "Expected the index to provide the order, plan was: " + plan);
+    }
+
+    /**
+     * Runs a repository query and returns the H2 plan of the SQL Hibernate generated for it.
+     * Every parameter is bound to the same number, which is enough for H2 to choose the plan.
+     */
+    private String explain(Runnable query) {
+        String sql;
+        synchronized (RecordingStatementInspector.statements) {
+            RecordingStatementInspector.statements.clear();
+            query.run();
+            Assertions.assertEquals(1, RecordingStatementInspector.statements.size(),
+                "Expected one statement, got " + RecordingStatementInspector.statements);
+            sql = RecordingStatementInspector.statements.get(0);
+        }
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql.replace("?", "10"), String.class);
+    }
+}
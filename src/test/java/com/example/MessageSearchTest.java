@@ -0,0 +1,191 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageSearchTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search?q=Message (the seeded messages are indexed at startup)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the three seeded messages, equally ranked so newest ID first
+     *  Headers: X-Total-Count 3
+     */
+    @Test
+    public void searchSeededMessages() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("http://localhost:8080/messages/search?q=Message");
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals("3", response.headers().firstValue("X-Total-Count").orElse(null));
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        expectedResult.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        expectedResult.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        Assertions.assertEquals(expectedResult, toMessages(response));
+
+        HttpResponse<String> byAccount = get("http://localhost:8080/messages/search?q=test%20message&postedBy=9997");
+        Assertions.assertEquals(200, byAccount.statusCode());
+        Assertions.assertEquals("1", byAccount.headers().firstValue("X-Total-Count").orElse(null));
+        Assertions.assertEquals(List.of(new Message(9997, 9997, "test message 2", 1669947792L)), toMessages(byAccount));
+    }
+
+    /**
+     * Creates messages and searches them: every query word must match, and a message
+     * repeating a word ranks above one mentioning it once.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: "cat cat cat" first for "cat", only "cat and dog" for "dog cat"
+     */
+    @Test
+    public void searchRanksAndMatchesAllWords() throws IOException, InterruptedException {
+        Message once = post("{\"postedBy\":9999,\"messageText\": \"a cat and a dog\",\"timePostedEpoch\": 1669947792}");
+        Message often = post("{\"postedBy\":9998,\"messageText\": \"Cat, cat, CAT!\",\"timePostedEpoch\": 1669947793}");
+        Message dog = post("{\"postedBy\":9997,\"messageText\": \"dog\",\"timePostedEpoch\": 1669947794}");
+
+        HttpResponse<String> cats = get("http://localhost:8080/messages/search?q=cat");
+        Assertions.assertEquals(200, cats.statusCode());
+        Assertions.assertEquals(List.of(often, once), toMessages(cats));
+
+        HttpResponse<String> both = get("http://localhost:8080/messages/search?q=DOG%20cat");
+        Assertions.assertEquals(List.of(once), toMessages(both));
+
+        HttpResponse<String> dogs = get("http://localhost:8080/messages/search?q=dog&postedBy=9997");
+        Assertions.assertEquals(List.of(dog), toMessages(dogs));
+
+        HttpResponse<String> none = get("http://localhost:8080/messages/search?q=cat%20bird");
+        Assertions.assertEquals(200, none.statusCode());
+        Assertions.assertEquals("0", none.headers().firstValue("X-Total-Count").orElse(null));
+        Assertions.assertEquals(List.of(), toMessages(none));
+    }
+
+    /**
+     * Searches with limit and offset.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the two best matches, then the remaining one
+     */
+    @Test
+    public void searchPaged() throws IOException, InterruptedException {
+        HttpResponse<String> page1 = get("http://localhost:8080/messages/search?q=test&limit=2");
+        Assertions.assertEquals(200, page1.statusCode());
+        Assertions.assertEquals("3", page1.headers().firstValue("X-Total-Count").orElse(null));
+        List<Message> messages1 = toMessages(page1);
+        Assertions.assertEquals(2, messages1.size());
+        Assertions.assertEquals(9999, messages1.get(0).getMessageId());
+        Assertions.assertEquals(9997, messages1.get(1).getMessageId());
+
+        HttpResponse<String> page2 = get("http://localhost:8080/messages/search?q=test&limit=2&offset=2");
+        Assertions.assertEquals(200, page2.statusCode());
+        Assertions.assertEquals(List.of(new Message(9996, 9996, "test message 3", 1669947792L)), toMessages(page2));
+
+        HttpResponse<String> past = get("http://localhost:8080/messages/search?q=test&limit=2&offset=4");
+        Assertions.assertEquals(List.of(), toMessages(past));
+    }
+
+    /**
+     * Updates and deletes a message, and checks that the search index follows.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message is found by its new text only, and not at all once deleted
+     */
+    @Test
+    public void searchFollowsUpdatesAndDeletes() throws IOException, InterruptedException {
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"renamed text\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(patch, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Assertions.assertEquals(List.of(new Message(9999, 9999, "renamed text", 1669947792L)),
+            toMessages(get("http://localhost:8080/messages/search?q=renamed")));
+        Assertions.assertEquals("2", get("http://localhost:8080/messages/search?q=message")
+            .headers().firstValue("X-Total-Count").orElse(null));
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .DELETE()
+                .build();
+        Assertions.assertEquals(200, webClient.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/messages/search?q=renamed")));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search without any words, or with an invalid page
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void searchInvalidQuery() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, get("http://localhost:8080/messages/search").statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/messages/search?q=%21%3F").statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/messages/search?q=test&offset=-1").statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/messages/search?q=test&limit=0").statusCode());
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Message post(String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    private List<Message> toMessages(HttpResponse<String> response) throws IOException {
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+}
@@ -0,0 +1,254 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.dto.MessageEvent;
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+import com.example.stream.MessageEventStream;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageStreamTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper. Each test starts the app itself
+     * with the settings it needs.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private void startApp(String... args) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    /**
+     * Opens GET localhost:8080/messages/stream and returns a queue receiving its lines.
+     */
+    private BlockingQueue<String> openStream(String query, String lastEventId)
+            throws InterruptedException, ExecutionException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/stream" + query));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = webClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofLines()).get();
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try {
+                response.body().forEach(lines::add);
+            } catch (UncheckedIOException e) {
+                // The server closed the stream
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    /**
+     * Reads the next event from the stream, skipping comments.
+     *
+     * @return the fields of the event (id, event, data), or null if none arrived within a few seconds
+     */
+    private Map<String, String> nextEvent(BlockingQueue<String> lines) throws InterruptedException {
+        Map<String, String> event = new HashMap<>();
+        while (true) {
+            String line = lines.poll(5, TimeUnit.SECONDS);
+            if (line == null) {
+                return null;
+            }
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                event.put(line.substring(0, colon), line.substring(colon + 1));
+            }
+        }
+    }
+
+    /**
+     * Reads the message from the data of a created event, which also carries the event type.
+     */
+    private Message toMessage(String data) throws IOException {
+        return objectMapper.readerFor(Message.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(data);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return webClient.send(request.header("Content-Type", "application/json").build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Message postMessage(int postedBy, String text) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + text + "\",\"timePostedEpoch\": 1669947792}";
+        HttpResponse<String> response = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    /**
+     * Creating, updating and deleting a message pushes a created, updated and deleted event, in order.
+     */
+    @Test
+    public void streamReceivesCreateUpdateDelete() throws Exception {
+        startApp();
+        BlockingQueue<String> lines = openStream("", null);
+
+        Message message = postMessage(9999, "hello stream");
+        send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + message.getMessageId()))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"edited\"}")));
+        send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + message.getMessageId()))
+                .DELETE());
+
+        Map<String, String> created = nextEvent(lines);
+        Assertions.assertEquals("1", created.get("id"));
+        Assertions.assertEquals("created", created.get("event"));
+        Assertions.assertEquals(message, toMessage(created.get("data")));
+
+        Map<String, String> updated = nextEvent(lines);
+        Assertions.assertEquals("2", updated.get("id"));
+        Assertions.assertEquals("updated", updated.get("event"));
+        Assertions.assertEquals("edited", objectMapper.readTree(updated.get("data")).get("messageText").asText());
+
+        Map<String, String> deleted = nextEvent(lines);
+        Assertions.assertEquals("3", deleted.get("id"));
+        Assertions.assertEquals("deleted", deleted.get("event"));
+        Assertions.assertEquals(message.getMessageId(), objectMapper.readTree(deleted.get("data")).get("messageId").asInt());
+    }
+
+    /**
+     * With postedBy, only the events of that account are pushed.
+     */
+    @Test
+    public void streamFilteredByPostedBy() throws Exception {
+        startApp();
+        BlockingQueue<String> lines = openStream("?postedBy=9999", null);
+
+        postMessage(9998, "other account");
+        Message message = postMessage(9999, "own account");
+
+        Map<String, String> event = nextEvent(lines);
+        Assertions.assertEquals("2", event.get("id"));
+        Assertions.assertEquals(message, toMessage(event.get("data")));
+    }
+
+    /**
+     * A client reconnecting with Last-Event-ID is sent the events it missed from the backlog.
+     */
+    @Test
+    public void reconnectCatchesUpFromLastEventId() throws Exception {
+        startApp();
+        postMessage(9999, "first");
+        Message second = postMessage(9999, "second");
+        Message third = postMessage(9999, "third");
+
+        BlockingQueue<String> lines = openStream("", "1");
+
+        Map<String, String> event = nextEvent(lines);
+        Assertions.assertEquals("2", event.get("id"));
+        Assertions.assertEquals(second, toMessage(event.get("data")));
+        event = nextEvent(lines);
+        Assertions.assertEquals("3", event.get("id"));
+        Assertions.assertEquals(third, toMessage(event.get("data")));
+    }
+
+    /**
+     * A client whose Last-Event-ID is not in the backlog is told to reset.
+     */
+    @Test
+    public void reconnectWithUnknownLastEventIdResets() throws Exception {
+        startApp();
+        postMessage(9999, "first");
+
+        BlockingQueue<String> lines = openStream("", "42");
+
+        Map<String, String> event = nextEvent(lines);
+        Assertions.assertEquals("reset", event.get("event"));
+        Assertions.assertEquals("1", event.get("id"));
+    }
+
+    /**
+     * A client that stops reading blocks its send until the socket write times out, without
+     * blocking the publisher. Its stream is then failed and the one dispatcher thread serves
+     * the other clients again.
+     */
+    @Test
+    public void clientThatStopsReadingIsDropped() throws Exception {
+        startApp("--server.tomcat.connection-timeout=1s", "--app.stream.dispatcher-threads=1");
+        MessageEventStream stream = app.getBean(MessageEventStream.class);
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(new InetSocketAddress("localhost", 8080));
+            stalled.getOutputStream().write("GET /messages/stream HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            for (int waits = 0; waits < 50 && stream.getSubscriberCount() == 0; waits++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals(1, stream.getSubscriberCount());
+
+            // Far more than the socket buffers hold
+            String text = "x".repeat(1 << 20);
+            long start = System.nanoTime();
+            for (int i = 0; i < 32; i++) {
+                stream.publish(MessageEvent.created(new MessageView(i, 9998, text, 1669947792L)));
+            }
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Expected publish not to wait for the client");
+
+            for (int waits = 0; waits < 100 && stream.getSubscriberCount() > 0; waits++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals(0, stream.getSubscriberCount(), "Expected the stalled client to be dropped");
+
+            BlockingQueue<String> lines = openStream("?postedBy=9999", null);
+            Message message = postMessage(9999, "after the stalled client");
+            Map<String, String> event = nextEvent(lines);
+            Assertions.assertNotNull(event, "Expected the dispatcher to serve other clients again");
+            Assertions.assertEquals("created", event.get("event"), "Unexpected event " + event);
+            Assertions.assertEquals(message, toMessage(event.get("data")));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageTagTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Creates a message with hashtags and a mention, and reads it back through
+     * GET localhost:8080/tags/{tag}/messages and GET localhost:8080/accounts/{accountId}/mentions
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message, for either hashtag in any case and for the mentioned account only
+     */
+    @Test
+    public void tagsAndMentionsExtracted() throws IOException, InterruptedException {
+        Message message = post("{\"postedBy\":9999,\"messageText\": \"Loving #Spring and #java_17 with @testuser2!\",\"timePostedEpoch\": 1669947800}");
+
+        Assertions.assertEquals(List.of(message), toMessages(get("http://localhost:8080/tags/spring/messages")));
+        Assertions.assertEquals(List.of(message), toMessages(get("http://localhost:8080/tags/%23SPRING/messages")));
+        Assertions.assertEquals(List.of(message), toMessages(get("http://localhost:8080/tags/java_17/messages")));
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/tags/java/messages")));
+
+        Assertions.assertEquals(List.of(message), toMessages(get("http://localhost:8080/accounts/9998/mentions")));
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/accounts/9999/mentions")));
+    }
+
+    /**
+     * An e-mail address is not a mention, and the mentions of an account that does not exist cannot be read.
+     *
+     * Expected Response:
+     *  Status Code: 200 with no messages, then 400 for the unknown account
+     */
+    @Test
+    public void mentionsMustStartAWord() throws IOException, InterruptedException {
+        post("{\"postedBy\":9999,\"messageText\": \"mail me at me@testuser2\",\"timePostedEpoch\": 1669947800}");
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/accounts/9998/mentions")));
+
+        HttpResponse<String> unknown = get("http://localhost:8080/accounts/5050/mentions");
+        Assertions.assertEquals(400, unknown.statusCode(), "Expected Status Code 400 - Actual Code was: " + unknown.statusCode());
+    }
+
+    /**
+     * Creates a batch of tagged messages and pages through GET localhost:8080/tags/paged/messages?limit=2
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the newest two messages, then the remaining one
+     *  Headers: X-Next-Cursor on the first page only
+     */
+    @Test
+    public void tagPagesNewestFirst() throws IOException, InterruptedException {
+        String json = "[{\"postedBy\":9999,\"messageText\": \"one #paged\",\"timePostedEpoch\": 1000},"
+                + "{\"postedBy\":9998,\"messageText\": \"three #paged\",\"timePostedEpoch\": 3000},"
+                + "{\"postedBy\":9997,\"messageText\": \"untagged\",\"timePostedEpoch\": 4000},"
+                + "{\"postedBy\":9997,\"messageText\": \"two #Paged\",\"timePostedEpoch\": 2000}]";
+        HttpRequest batch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(batch, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpResponse<String> response1 = get("http://localhost:8080/tags/paged/messages?limit=2");
+        List<Message> page1 = toMessages(response1);
+        Assertions.assertEquals(List.of("three #paged", "two #Paged"), List.of(page1.get(0).getMessageText(), page1.get(1).getMessageText()));
+        Optional<String> cursor = response1.headers().firstValue("X-Next-Cursor");
+        Assertions.assertTrue(cursor.isPresent());
+
+        HttpResponse<String> response2 = get("http://localhost:8080/tags/paged/messages?limit=2&after=" + cursor.get());
+        List<Message> page2 = toMessages(response2);
+        Assertions.assertEquals(1, page2.size());
+        Assertions.assertEquals("one #paged", page2.get(0).getMessageText());
+        Assertions.assertTrue(response2.headers().firstValue("X-Next-Cursor").isEmpty());
+    }
+
+    /**
+     * Updates and deletes a tagged message, and checks that its tags follow.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message under its new tag only, and under no tag once deleted
+     */
+    @Test
+    public void tagsFollowUpdatesAndDeletes() throws IOException, InterruptedException {
+        Message message = post("{\"postedBy\":9999,\"messageText\": \"#before\",\"timePostedEpoch\": 1669947800}");
+
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + message.getMessageId()))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"#after @testuser3\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(patch, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Message updated = new Message(message.getMessageId(), 9999, "#after @testuser3", 1669947800L);
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/tags/before/messages")));
+        Assertions.assertEquals(List.of(updated), toMessages(get("http://localhost:8080/tags/after/messages")));
+        Assertions.assertEquals(List.of(updated), toMessages(get("http://localhost:8080/accounts/9997/mentions")));
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + message.getMessageId()))
+                .DELETE()
+                .build();
+        Assertions.assertEquals(200, webClient.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/tags/after/messages")));
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/accounts/9997/mentions")));
+    }
+
+    /**
+     * Registers usernames with dots and hyphens and mentions them, one at the end of a sentence.
+     *
+     * Expected Response:
+     *  Status Code: 200 for every registration
+     *  Response Body: each message among the mentions of the account it names only
+     */
+    @Test
+    public void mentionsNameDottedAndHyphenatedUsernames() throws IOException, InterruptedException {
+        Account dotted = register("john.doe");
+        Account hyphenated = register("user-1");
+        Account prefix = register("john");
+
+        Message first = post("{\"postedBy\":9999,\"messageText\": \"Thanks @john.doe.\",\"timePostedEpoch\": 1669947800}");
+        Message second = post("{\"postedBy\":9999,\"messageText\": \"Hi @user-1, welcome\",\"timePostedEpoch\": 1669947801}");
+
+        Assertions.assertEquals(List.of(first), toMessages(get("http://localhost:8080/accounts/" + dotted.getAccountId() + "/mentions")));
+        Assertions.assertEquals(List.of(second), toMessages(get("http://localhost:8080/accounts/" + hyphenated.getAccountId() + "/mentions")));
+        Assertions.assertEquals(List.of(), toMessages(get("http://localhost:8080/accounts/" + prefix.getAccountId() + "/mentions")));
+    }
+
+    private Account register(String username) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), Account.class);
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Message post(String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    private List<Message> toMessages(HttpResponse<String> response) throws IOException {
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+}
@@ -0,0 +1,150 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageTimeRangeTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web. Then create messages posted at known times.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws IOException, InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+
+        String json = "[{\"postedBy\":9999,\"messageText\": \"at 3000\",\"timePostedEpoch\": 3000},"
+                + "{\"postedBy\":9998,\"messageText\": \"at 1000\",\"timePostedEpoch\": 1000},"
+                + "{\"postedBy\":9999,\"messageText\": \"at 2000\",\"timePostedEpoch\": 2000},"
+                + "{\"postedBy\":9998,\"messageText\": \"also at 3000\",\"timePostedEpoch\": 3000}]";
+        HttpRequest batch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(batch, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?since={since}&until={until}
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages posted in [since, until), oldest first, messages posted at
+     *  the same time in message ID order
+     */
+    @Test
+    public void messagesInTimeRangeOldestFirst() throws IOException, InterruptedException {
+        Assertions.assertEquals(List.of("at 2000", "at 3000", "also at 3000"), texts(get("http://localhost:8080/messages?since=2000&until=4000")));
+        Assertions.assertEquals(List.of("at 1000", "at 2000"), texts(get("http://localhost:8080/messages?until=3000")));
+        Assertions.assertEquals(List.of("test message 3", "test message 2", "test message 1"),
+                texts(get("http://localhost:8080/messages?since=1669947792")));
+        Assertions.assertEquals(List.of(), texts(get("http://localhost:8080/messages?since=4000&until=5000")));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages?since={since}&until={until}
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the account's messages posted in [since, until), oldest first
+     */
+    @Test
+    public void accountMessagesInTimeRange() throws IOException, InterruptedException {
+        Assertions.assertEquals(List.of("at 2000", "at 3000"), texts(get("http://localhost:8080/accounts/9999/messages?since=1000&until=4000")));
+        Assertions.assertEquals(List.of("at 1000", "also at 3000"), texts(get("http://localhost:8080/accounts/9998/messages?since=0")));
+        Assertions.assertEquals(List.of(), texts(get("http://localhost:8080/accounts/9997/messages?until=1669947792")));
+    }
+
+    /**
+     * Pages through a time range with GET localhost:8080/messages?since=0&until=4000&limit=2
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: every message in the range exactly once, oldest first
+     *  Headers: X-Next-Cursor on every page but the last
+     */
+    @Test
+    public void timeRangePages() throws IOException, InterruptedException {
+        List<String> messages = new ArrayList<>();
+        String uri = "http://localhost:8080/messages?since=0&until=4000&limit=2";
+        for (int pages = 0; pages < 10; pages++) {
+            HttpResponse<String> response = get(uri);
+            List<String> page = texts(response);
+            Assertions.assertTrue(page.size() <= 2);
+            messages.addAll(page);
+            Optional<String> cursor = response.headers().firstValue("X-Next-Cursor");
+            if (cursor.isEmpty()) {
+                break;
+            }
+            uri = "http://localhost:8080/messages?since=0&until=4000&limit=2&after=" + cursor.get();
+        }
+        Assertions.assertEquals(List.of("at 1000", "at 2000", "at 3000", "also at 3000"), messages);
+
+        HttpResponse<String> accountPage = get("http://localhost:8080/accounts/9998/messages?since=0&limit=1");
+        Assertions.assertEquals(List.of("at 1000"), texts(accountPage));
+        Assertions.assertTrue(accountPage.headers().firstValue("X-Next-Cursor").isPresent());
+    }
+
+    /**
+     * An empty or reversed time range, or the time range of an account that does not exist,
+     * is rejected.
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void invalidTimeRangesRejected() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, get("http://localhost:8080/messages?since=3000&until=3000").statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/messages?since=3000&until=2000&limit=2").statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/accounts/9999/messages?since=3000&until=1000").statusCode());
+        Assertions.assertEquals(400, get("http://localhost:8080/accounts/5050/messages?since=0").statusCode());
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<String> texts(HttpResponse<String> response) throws IOException {
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<String> texts = new ArrayList<>();
+        for (Message message : objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){})) {
+            texts.add(message.getMessageText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class MetricsTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/prometheus after serving some requests
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: p50/p99 latency per route and service method, error counters, pool, session and cache metrics
+     */
+    @Test
+    public void prometheusScrapeHasRouteLatencyAndErrors() throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/messages")).build());
+        send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/accounts/9999/messages")).build());
+        send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"nobody\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build());
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/actuator/prometheus")).build());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        String body = response.body();
+
+        assertContains(body, "http_server_requests_seconds{", "uri=\"/messages\"", "quantile=\"0.99\"");
+        assertContains(body, "http_server_requests_seconds{", "uri=\"/accounts/{accountId}/messages\"", "quantile=\"0.5\"");
+        assertContains(body, "app_service_invocations_seconds{", "method=\"getAllMessages\"", "quantile=\"0.99\"");
+        assertContains(body, "spring_data_repository_invocations_seconds_bucket{", "repository=\"MessageRepository\"");
+        assertContains(body, "app_errors_total{", "error=\"invalid_login\"", "status=\"401\"");
+        assertContains(body, "hikaricp_connections_active");
+        assertContains(body, "hibernate_sessions_open_total");
+        assertContains(body, "app_cache_gets_total{", "cache=\"timelines\"");
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Asserts that one line of the scrape starts with the provided prefix and contains every provided label.
+     */
+    private void assertContains(String body, String prefix, String... labels) {
+        boolean found = body.lines()
+            .filter(line -> line.startsWith(prefix))
+            .anyMatch(line -> {
+                for (String label : labels) {
+                    if (!line.contains(label)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        Assertions.assertTrue(found, "Expected a " + prefix + " line with " + String.join(", ", labels));
+    }
+}
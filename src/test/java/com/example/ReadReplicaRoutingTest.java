@@ -0,0 +1,151 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ReadReplicaRoutingTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper. Each test starts the app itself
+     * with the replica settings it needs.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private void startApp(String maxLag, String syncInterval) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, "--app.datasource.replica.enabled=true",
+            "--app.datasource.replica.max-lag=" + maxLag, "--app.datasource.replica.sync-interval=" + syncInterval);
+        Thread.sleep(500);
+    }
+
+    private HttpResponse<String> post(String clientId, String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("X-Client-Id", clientId)
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Message> getAllMessages(String clientId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .header("X-Client-Id", clientId)
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    private void postMessage(String clientId) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        Assertions.assertEquals(200, post(clientId, "/messages", json).statusCode());
+    }
+
+    /**
+     * While the replica has not synced, other clients read from it and do not see a new message,
+     * but the client that posted it reads its own write from the primary.
+     */
+    @Test
+    public void readsServedFromReplicaExceptForWriter() throws IOException, InterruptedException {
+        startApp("1h", "1h");
+
+        postMessage("writer");
+
+        Assertions.assertEquals(4, getAllMessages("writer").size());
+        Assertions.assertEquals(3, getAllMessages("reader").size());
+    }
+
+    /**
+     * Reads that fill a cache come from the primary, so a stale replica row is never cached.
+     */
+    @Test
+    public void cachedReadsComeFromPrimary() throws IOException, InterruptedException {
+        startApp("1h", "1h");
+
+        postMessage("writer");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages"))
+                .header("X-Client-Id", "reader")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(2, objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){}).size());
+    }
+
+    /**
+     * Login is a read, so a client cannot log in to an account the replica does not have yet,
+     * unless it registered the account itself.
+     */
+    @Test
+    public void loginServedFromReplicaExceptForWriter() throws IOException, InterruptedException {
+        startApp("1h", "1h");
+
+        String json = "{\"username\":\"replicated\",\"password\":\"password\"}";
+        Assertions.assertEquals(200, post("writer", "/register", json).statusCode());
+
+        Assertions.assertEquals(401, post("reader", "/login", json).statusCode());
+        Assertions.assertEquals(200, post("writer", "/login", json).statusCode());
+    }
+
+    /**
+     * Once the replica is further behind than the lag tolerance, every read goes to the primary.
+     */
+    @Test
+    public void laggingReplicaIsBypassed() throws IOException, InterruptedException {
+        startApp("1ms", "1h");
+
+        postMessage("writer");
+
+        Assertions.assertEquals(4, getAllMessages("reader").size());
+    }
+
+    /**
+     * The replica catches up with the primary, after which other clients see the new rows.
+     */
+    @Test
+    public void replicaCatchesUp() throws IOException, InterruptedException {
+        startApp("1h", "50ms");
+
+        String json = "{\"username\":\"replicated\",\"password\":\"password\"}";
+        Assertions.assertEquals(200, post("writer", "/register", json).statusCode());
+        postMessage("writer");
+
+        List<Message> messages = getAllMessages("reader");
+        for (int attempt = 0; attempt < 50 && messages.size() < 4; attempt++) {
+            Thread.sleep(20);
+            messages = getAllMessages("reader");
+        }
+        Assertions.assertEquals(4, messages.size());
+        Assertions.assertEquals(200, post("reader", "/login", json).statusCode());
+    }
+}
@@ -79,4 +79,23 @@ public class RetrieveMessageByMessageIdTest {
         Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
         Assertions.assertTrue(response.body().toString().isEmpty(), "Expected Empty Result, but Result was not Empty");
     }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999 and comparing the raw JSON
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the same JSON a serialized Message entity produces, with properties in the same order
+     */
+    @Test
+    public void getMessageGivenMessageIdJsonShape() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        String expectedResult = objectMapper.writeValueAsString(new Message(9999, 9999, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedResult, response.body(), "Expected="+expectedResult + ", Actual="+response.body());
+    }
 }
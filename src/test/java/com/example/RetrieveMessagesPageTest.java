@@ -0,0 +1,175 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RetrieveMessagesPageTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?limit=2 and following the returned cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the newest two messages, then the remaining message
+     *  Headers: X-Next-Cursor on the first page only
+     */
+    @Test
+    public void getAllMessagesPaged() throws IOException, InterruptedException {
+        HttpResponse<String> response1 = get("http://localhost:8080/messages?limit=2");
+        Assertions.assertEquals(200, response1.statusCode(), "Expected Status Code 200 - Actual Code was: " + response1.statusCode());
+        List<Message> expectedResult1 = new ArrayList<Message>();
+        expectedResult1.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        expectedResult1.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        List<Message> actualResult1 = objectMapper.readValue(response1.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult1, actualResult1, "Expected="+expectedResult1 + ", Actual="+actualResult1);
+        Optional<String> cursor = response1.headers().firstValue("X-Next-Cursor");
+        Assertions.assertTrue(cursor.isPresent(), "Expected a next page cursor on the first page");
+
+        HttpResponse<String> response2 = get("http://localhost:8080/messages?limit=2&after=" + cursor.get());
+        Assertions.assertEquals(200, response2.statusCode(), "Expected Status Code 200 - Actual Code was: " + response2.statusCode());
+        List<Message> expectedResult2 = new ArrayList<Message>();
+        expectedResult2.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        List<Message> actualResult2 = objectMapper.readValue(response2.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult2, actualResult2, "Expected="+expectedResult2 + ", Actual="+actualResult2);
+        Assertions.assertTrue(response2.headers().firstValue("X-Next-Cursor").isEmpty(), "Expected no cursor on the last page");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages?limit=1 after posting a newer message
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the newest message first, then the older message on the next page
+     */
+    @Test
+    public void getAllMessagesFromUserPaged() throws IOException, InterruptedException {
+        String json = "{\"postedBy\":9999,\"messageText\": \"newer message\",\"timePostedEpoch\": 1669947800}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Message created = objectMapper.readValue(webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+
+        HttpResponse<String> response1 = get("http://localhost:8080/accounts/9999/messages?limit=1");
+        Assertions.assertEquals(200, response1.statusCode(), "Expected Status Code 200 - Actual Code was: " + response1.statusCode());
+        List<Message> actualResult1 = objectMapper.readValue(response1.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(List.of(created), actualResult1, "Expected="+created + ", Actual="+actualResult1);
+        String cursor = response1.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        HttpResponse<String> response2 = get("http://localhost:8080/accounts/9999/messages?limit=1&after=" + cursor);
+        List<Message> expectedResult2 = List.of(new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult2 = objectMapper.readValue(response2.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult2, actualResult2, "Expected="+expectedResult2 + ", Actual="+actualResult2);
+        Assertions.assertTrue(response2.headers().firstValue("X-Next-Cursor").isEmpty(), "Expected no cursor on the last page");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages with an invalid cursor
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getAllMessagesInvalidCursor() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("http://localhost:8080/messages?after=not-a-cursor");
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    /**
+     * Posting messages without a timePostedEpoch, one by one and in a batch, then paging through
+     * GET localhost:8080/messages?limit=1
+     *
+     * Expected Response:
+     *  Status Code: 200, the untimed messages are posted at the current time
+     *  Response Body: every stored message exactly once, newest first
+     */
+    @Test
+    public void untimedMessagesPostedNowAndPagesComplete() throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999,\"messageText\": \"untimed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> posted = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, posted.statusCode(), "Expected Status Code 200 - Actual Code was: " + posted.statusCode());
+        Assertions.assertNotNull(objectMapper.readValue(posted.body(), Message.class).getTimePostedEpoch());
+
+        String json = "[{\"postedBy\":9998,\"messageText\": \"untimed in batch\"},"
+                + "{\"postedBy\":9998,\"messageText\": \"timed in batch\",\"timePostedEpoch\": 1669947800}]";
+        HttpRequest batchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        List<JsonNode> results = objectMapper.readValue(webClient.send(batchRequest, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeReference<List<JsonNode>>(){});
+        Assertions.assertEquals(200, results.get(0).get("status").asInt());
+        Assertions.assertEquals(200, results.get(1).get("status").asInt());
+
+        List<String> texts = new ArrayList<>();
+        String uri = "http://localhost:8080/messages?limit=1";
+        for (int pages = 0; pages < 10; pages++) {
+            HttpResponse<String> response = get(uri);
+            Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+            for (Message message : objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){})) {
+                texts.add(message.getMessageText());
+            }
+            Optional<String> cursor = response.headers().firstValue("X-Next-Cursor");
+            if (cursor.isEmpty()) {
+                break;
+            }
+            uri = "http://localhost:8080/messages?limit=1&after=" + cursor.get();
+        }
+        Assertions.assertEquals(List.of("untimed in batch", "untimed", "timed in batch", "test message 1", "test message 2", "test message 3"), texts);
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,237 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ShardedMessageTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    static final int SHARDS = 4;
+
+    /**
+     * Before every test, start the app with the messages sharded across four in-memory H2
+     * databases, and create a new webClient and ObjectMapper.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--app.sharding.enabled=true", "--app.sharding.shards=" + SHARDS};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return webClient.send(request.header("Content-Type", "application/json").build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)));
+    }
+
+    private Message postMessage(int postedBy, String text, long timePostedEpoch) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + text + "\",\"timePostedEpoch\": " + timePostedEpoch + "}";
+        HttpResponse<String> response = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    private List<Message> readMessages(HttpResponse<String> response) throws IOException {
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    private int countRows(int shard) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:shard" + shard, "sa", "password");
+             ResultSet count = connection.createStatement().executeQuery("SELECT COUNT(*) FROM message")) {
+            count.next();
+            return count.getInt(1);
+        }
+    }
+
+    /**
+     * Messages of different accounts are spread over the shards, get distinct IDs and can be read back by ID.
+     * GET localhost:8080/messages merges the messages of every shard in message ID order, as without sharding.
+     */
+    @Test
+    public void messagesSpreadAcrossShardsAndMergedById() throws IOException, InterruptedException, SQLException {
+        List<Message> created = new ArrayList<>();
+        created.add(postMessage(9999, "third", 3000));
+        created.add(postMessage(9998, "first", 1000));
+        created.add(postMessage(9997, "fourth", 4000));
+        created.add(postMessage(9996, "second", 2000));
+
+        Set<Integer> ids = new HashSet<>();
+        for (Message message : created) {
+            Assertions.assertTrue(ids.add(message.getMessageId()), "Duplicate message ID " + message.getMessageId());
+            Message read = objectMapper.readValue(get("/messages/" + message.getMessageId()).body(), Message.class);
+            Assertions.assertEquals(message, read);
+        }
+
+        int total = 0;
+        int usedShards = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            int rows = countRows(shard);
+            total += rows;
+            usedShards += rows > 0 ? 1 : 0;
+        }
+        Assertions.assertEquals(4, total);
+        Assertions.assertTrue(usedShards > 1, "Expected the messages to be spread over several shards");
+
+        created.sort(Comparator.comparing(Message::getMessageId));
+        Assertions.assertEquals(created, readMessages(get("/messages")));
+    }
+
+    /**
+     * GET localhost:8080/messages/export merges the messages of every shard in message ID order.
+     */
+    @Test
+    public void exportMergedByMessageId() throws IOException, InterruptedException {
+        List<Integer> expectedIds = new ArrayList<>();
+        for (int postedBy = 9996; postedBy <= 9999; postedBy++) {
+            expectedIds.add(postMessage(postedBy, "message", 1000).getMessageId());
+            expectedIds.add(postMessage(postedBy, "message", 2000).getMessageId());
+        }
+        expectedIds.sort(null);
+
+        HttpResponse<String> response = get("/messages/export");
+        Assertions.assertEquals(200, response.statusCode());
+        List<Integer> exportedIds = new ArrayList<>();
+        for (String line : response.body().split("\n")) {
+            if (!line.isBlank()) {
+                exportedIds.add(objectMapper.readValue(line, Message.class).getMessageId());
+            }
+        }
+        Assertions.assertEquals(expectedIds, exportedIds);
+    }
+
+    /**
+     * The pages of GET localhost:8080/messages are merged from every shard, newest first.
+     */
+    @Test
+    public void pagesMergedAcrossShards() throws IOException, InterruptedException {
+        postMessage(9999, "third", 3000);
+        postMessage(9998, "first", 1000);
+        postMessage(9997, "fourth", 4000);
+
+        HttpResponse<String> response1 = get("/messages?limit=2");
+        List<Message> page1 = readMessages(response1);
+        Assertions.assertEquals(List.of("fourth", "third"), List.of(page1.get(0).getMessageText(), page1.get(1).getMessageText()));
+        Optional<String> cursor = response1.headers().firstValue("X-Next-Cursor");
+        Assertions.assertTrue(cursor.isPresent());
+
+        List<Message> page2 = readMessages(get("/messages?limit=2&after=" + cursor.get()));
+        Assertions.assertEquals(1, page2.size());
+        Assertions.assertEquals("first", page2.get(0).getMessageText());
+    }
+
+    /**
+     * Reads a time range of messages posted on different shards, whole and in pages.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages in the range merged oldest first
+     */
+    @Test
+    public void timeRangesMergedAcrossShards() throws IOException, InterruptedException {
+        Message first = postMessage(9998, "first", 1000);
+        Message second = postMessage(9999, "second", 2000);
+        Message third = postMessage(9997, "third", 3000);
+        postMessage(9996, "fourth", 4000);
+
+        Assertions.assertEquals(List.of(first, second, third), readMessages(get("/messages?since=1000&until=4000")));
+
+        HttpResponse<String> response1 = get("/messages?since=1500&until=5000&limit=2");
+        Assertions.assertEquals(List.of(second, third), readMessages(response1));
+        Optional<String> cursor = response1.headers().firstValue("X-Next-Cursor");
+        Assertions.assertTrue(cursor.isPresent());
+        List<Message> page2 = readMessages(get("/messages?since=1500&until=5000&limit=2&after=" + cursor.get()));
+        Assertions.assertEquals(List.of("fourth"), List.of(page2.get(0).getMessageText()));
+
+        Assertions.assertEquals(List.of(second), readMessages(get("/accounts/9999/messages?until=3000")));
+    }
+
+    /**
+     * The messages of a hashtag are stored with their message in every shard, and merged newest first.
+     */
+    @Test
+    public void tagPagesMergedAcrossShards() throws IOException, InterruptedException {
+        Message second = postMessage(9999, "second #shared", 2000);
+        postMessage(9998, "first #shared", 1000);
+        Message third = postMessage(9997, "third #shared", 3000);
+
+        HttpResponse<String> response1 = get("/tags/shared/messages?limit=2");
+        Assertions.assertEquals(List.of(third, second), readMessages(response1));
+        Optional<String> cursor = response1.headers().firstValue("X-Next-Cursor");
+        Assertions.assertTrue(cursor.isPresent());
+        List<Message> page2 = readMessages(get("/tags/shared/messages?limit=2&after=" + cursor.get()));
+        Assertions.assertEquals(List.of("first #shared"), List.of(page2.get(0).getMessageText()));
+
+        HttpResponse<String> delete = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + third.getMessageId()))
+                .DELETE());
+        Assertions.assertEquals(200, delete.statusCode());
+        Assertions.assertEquals(2, readMessages(get("/tags/shared/messages")).size());
+    }
+
+    /**
+     * An account's messages, and updates and deletes by message ID, are served by the account's shard.
+     */
+    @Test
+    public void singleShardOperations() throws IOException, InterruptedException {
+        Message older = postMessage(9999, "older", 1000);
+        Message newer = postMessage(9999, "newer", 2000);
+        postMessage(9998, "other account", 1500);
+
+        List<Message> timeline = readMessages(get("/accounts/9999/messages"));
+        Assertions.assertEquals(List.of(newer, older), timeline);
+
+        HttpResponse<String> patch = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + older.getMessageId()))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"edited\"}")));
+        Assertions.assertEquals(200, patch.statusCode());
+        Assertions.assertEquals("edited", objectMapper.readValue(get("/messages/" + older.getMessageId()).body(), Message.class).getMessageText());
+
+        HttpResponse<String> delete = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + newer.getMessageId()))
+                .DELETE());
+        Assertions.assertEquals(200, delete.statusCode());
+        Assertions.assertEquals("", get("/messages/" + newer.getMessageId()).body());
+        Assertions.assertEquals(1, readMessages(get("/accounts/9999/messages")).size());
+    }
+}
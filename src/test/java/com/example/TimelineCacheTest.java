@@ -0,0 +1,129 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.cache.TimelineCache;
+import com.example.cache.TimelineCache.Timeline;
+import com.example.dto.MessageView;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TimelineCacheTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    TimelineCache timelineCache;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        timelineCache = app.getBean(TimelineCache.class);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Reading the same timeline twice should load it once and serve the second read from the cache.
+     */
+    @Test
+    public void getAllMessagesFromUserServedFromCache() throws IOException, InterruptedException {
+        long misses = timelineCache.getMissCount();
+        long hits = timelineCache.getHitCount();
+        getTimeline(9999);
+        getTimeline(9999);
+        Assertions.assertEquals(misses + 1, timelineCache.getMissCount(), "Expected one cache miss");
+        Assertions.assertEquals(hits + 1, timelineCache.getHitCount(), "Expected one cache hit");
+    }
+
+    /**
+     * A cached timeline should reflect a create, an update and a delete as soon as each request returns.
+     */
+    @Test
+    public void getAllMessagesFromUserSeesOwnWrites() throws IOException, InterruptedException {
+        Message original = new Message(9999, 9999, "test message 1", 1669947792L);
+        Assertions.assertEquals(List.of(original), getTimeline(9999));
+
+        String json = "{\"postedBy\":9999,\"messageText\": \"newer message\",\"timePostedEpoch\": 1669947800}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Message created = objectMapper.readValue(webClient.send(postRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+        Assertions.assertEquals(List.of(created, original), getTimeline(9999));
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"text changed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Message updated = new Message(9999, 9999, "text changed", 1669947792L);
+        Assertions.assertEquals(List.of(created, updated), getTimeline(9999));
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + created.getMessageId()))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(List.of(updated), getTimeline(9999));
+    }
+
+    /**
+     * With room for only two versions, versions of written accounts are evicted, and cached
+     * timelines still reflect every write.
+     */
+    @Test
+    public void evictedVersionsNeverServeStaleTimelines() {
+        TimelineCache cache = new TimelineCache(true, 1000, 2);
+        for (int accountId = 1; accountId <= 50; accountId++) {
+            cache.invalidate(accountId);
+        }
+        Assertions.assertEquals(List.of(), cache.get(1, id -> new Timeline(true, List.of())).getMessages());
+        MessageView message = new MessageView(1, 1, "written", 1669947800L);
+        for (int accountId = 2; accountId <= 50; accountId++) {
+            cache.invalidate(accountId);
+        }
+        cache.invalidate(1);
+        for (int accountId = 2; accountId <= 50; accountId++) {
+            cache.invalidate(accountId);
+        }
+        Assertions.assertEquals(List.of(message), cache.get(1, id -> new Timeline(true, List.of(message))).getMessages());
+        Assertions.assertEquals(List.of(message), cache.get(1, id -> new Timeline(true, List.of())).getMessages());
+    }
+
+    private List<Message> getTimeline(int accountId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/" + accountId + "/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+}
@@ -6,6 +6,9 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -83,4 +86,34 @@ public class UserRegistrationTest {
         Assertions.assertEquals(200, status1, "Expected Status Code 200 - Actual Code was: " + status1);
         Assertions.assertEquals(409, status2, "Expected Status Code 409 - Actual Code was: " + status2);
     }
+
+    /**
+     * Sending many concurrent http requests to POST localhost:8080/register with the same username
+     * 
+     * Expected Response:
+     *  Exactly one request succeeds with Status Code 200, every other request gets Status Code 409
+     */
+    @Test
+    public void registerUserConcurrentDuplicateUsername() throws IOException, InterruptedException {
+        String json = "{\"username\":\"concurrent\",\"password\":\"password\"}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(webClient.sendAsync(postRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+        int created = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.join().statusCode();
+            if (status == 200) {
+                created++;
+            } else {
+                Assertions.assertEquals(409, status, "Expected Status Code 409 - Actual Code was: " + status);
+            }
+        }
+        Assertions.assertEquals(1, created, "Expected exactly one successful registration - Actual was: " + created);
+    }
 }
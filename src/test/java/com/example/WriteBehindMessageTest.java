@@ -0,0 +1,218 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.example.repository.MessageBatchWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class WriteBehindMessageTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper. Each test starts the app itself
+     * with the write-behind settings it needs.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    private void startApp(String... args) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    private HttpResponse<String> postMessage(String text) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":9999,\"messageText\": \"" + text + "\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> getMessage(int messageId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + messageId))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * With write-behind acknowledging after the flush, POST localhost:8080/messages answers
+     * once the message is committed.
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of message object, readable straight away
+     */
+    @Test
+    public void createMessageAcknowledgedAfterFlush() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=flush");
+
+        HttpResponse<String> response = postMessage("hello message");
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Message expectedResult = new Message(1, 9999, "hello message", Long.valueOf(1669947792));
+        Message actualResult = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+
+        HttpResponse<String> getResponse = getMessage(1);
+        Assertions.assertEquals(200, getResponse.statusCode());
+        Assertions.assertEquals(expectedResult, objectMapper.readValue(getResponse.body(), Message.class));
+    }
+
+    /**
+     * With write-behind acknowledging on enqueue, POST localhost:8080/messages answers before
+     * the message is committed, and the message becomes readable once its batch is written.
+     *
+     * Expected Response:
+     *  Status Code: 202
+     *  Response Body: JSON representation of message object with its assigned messageId
+     */
+    @Test
+    public void createMessageAcknowledgedOnEnqueue() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=enqueue");
+
+        HttpResponse<String> response = postMessage("hello message");
+        int status = response.statusCode();
+        Assertions.assertEquals(202, status, "Expected Status Code 202 - Actual Code was: " + status);
+        Message expectedResult = new Message(1, 9999, "hello message", Long.valueOf(1669947792));
+        Message actualResult = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+
+        HttpResponse<String> getResponse = getMessage(1);
+        for (int attempt = 0; attempt < 50 && getResponse.body().isEmpty(); attempt++) {
+            Thread.sleep(20);
+            getResponse = getMessage(1);
+        }
+        Assertions.assertEquals(expectedResult, objectMapper.readValue(getResponse.body(), Message.class));
+    }
+
+    /**
+     * Invalid messages are still rejected inline when write-behind is enabled.
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void createMessageMessageTextBlank() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=enqueue");
+
+        HttpResponse<String> response = postMessage("");
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    /**
+     * When the write-behind queue is full, POST localhost:8080/messages is rejected.
+     *
+     * Expected Response:
+     *  Status Code: 429
+     */
+    @Test
+    public void createMessageQueueFull() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=enqueue",
+            "--app.write-behind.queue-capacity=2", "--app.write-behind.max-batch-size=100",
+            "--app.write-behind.flush-interval=10s");
+
+        Assertions.assertEquals(202, postMessage("first").statusCode());
+        Assertions.assertEquals(202, postMessage("second").statusCode());
+        HttpResponse<String> response = postMessage("third");
+        int status = response.statusCode();
+        Assertions.assertEquals(429, status, "Expected Status Code 429 - Actual Code was: " + status);
+    }
+
+    /**
+     * With write-behind acknowledging after the flush, POST localhost:8080/messages stops
+     * waiting once the commit timeout has passed without the batch being written.
+     *
+     * Expected Response:
+     *  Status Code: 503
+     */
+    @Test
+    public void createMessageCommitTimeout() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=flush",
+            "--app.write-behind.max-batch-size=100", "--app.write-behind.flush-interval=10s",
+            "--app.write-behind.commit-timeout=200ms");
+
+        HttpResponse<String> response = postMessage("slow");
+        int status = response.statusCode();
+        Assertions.assertEquals(503, status, "Expected Status Code 503 - Actual Code was: " + status);
+    }
+
+    /**
+     * Once the writer has been stopped, POST localhost:8080/messages is rejected instead of
+     * waiting for a batch that will never be written.
+     *
+     * Expected Response:
+     *  Status Code: 429, answered straight away
+     */
+    @Test
+    public void createMessageAfterStopRejected() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=flush");
+        app.getBean(MessageBatchWriter.class).stop();
+
+        String json = "{\"postedBy\":9999,\"messageText\": \"too late\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .timeout(Duration.ofSeconds(5))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        int status = webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+        Assertions.assertEquals(429, status, "Expected Status Code 429 - Actual Code was: " + status);
+    }
+
+    /**
+     * A message accepted in enqueue mode whose batch cannot be committed is counted as failed.
+     * Its account is deleted behind the application's back before the batch is written.
+     *
+     * Expected Response:
+     *  Status Code: 202, then one failed batch of one message
+     */
+    @Test
+    public void failedBatchesCounted() throws IOException, InterruptedException {
+        startApp("--app.write-behind.enabled=true", "--app.write-behind.acknowledge=enqueue",
+            "--app.write-behind.flush-interval=10s");
+        String json = "{\"postedBy\":9996,\"messageText\": \"orphan\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(202, webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM message WHERE postedBy = 9996");
+        jdbcTemplate.update("DELETE FROM account WHERE accountId = 9996");
+
+        MessageBatchWriter writer = app.getBean(MessageBatchWriter.class);
+        writer.stop();
+        Assertions.assertEquals(1, writer.getFailedBatchCount());
+        Assertions.assertEquals(1, writer.getFailedMessageCount());
+    }
+}